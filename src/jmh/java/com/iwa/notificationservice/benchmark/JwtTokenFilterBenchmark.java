@@ -0,0 +1,71 @@
+package com.iwa.notificationservice.benchmark;
+
+import com.iwa.notificationservice.security.AuthAuditLogger;
+import com.iwa.notificationservice.security.JwtTokenFilter;
+import com.iwa.notificationservice.security.JwtTokenUtil;
+import com.iwa.notificationservice.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passage complet d'une requête authentifiée dans JwtTokenFilter, avec et sans cache des tokens vérifiés.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenFilterBenchmark {
+
+    // 0 désactive le cache
+    @Param({"0", "10000"})
+    public int cacheSize;
+
+    private JwtTokenFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtTokenUtil jwtTokenUtil = JwtTokenUtilBenchmark.newJwtTokenUtil();
+        authorization = "Bearer " + jwtTokenUtil.generateAccessToken(42L);
+
+        filter = new JwtTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtTokenUtil", jwtTokenUtil);
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache", new VerifiedTokenCache(cacheSize, Duration.ofMinutes(5)));
+        ReflectionTestUtils.setField(filter, "authAuditLogger", new AuthAuditLogger(Duration.ofSeconds(10)));
+        ReflectionTestUtils.setField(filter, "verifyTimer", Timer.builder("security.jwt.verify").register(new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public Object doFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/notifications/user/42");
+        request.addHeader("Authorization", authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,58 @@
+package com.iwa.notificationservice.benchmark;
+
+import com.iwa.notificationservice.security.JwtTokenUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de la vérification d'un JWT : ancien chemin (validate puis getUserId, deux vérifications)
+ * et chemin actuel du filtre (un seul verify).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenUtilBenchmark {
+
+    static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-0001";
+
+    private JwtTokenUtil jwtTokenUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtTokenUtil = newJwtTokenUtil();
+        token = jwtTokenUtil.generateAccessToken(42L);
+    }
+
+    @Benchmark
+    public Long validateThenGetUserId() {
+        return jwtTokenUtil.validate(token) ? jwtTokenUtil.getUserId(token) : null;
+    }
+
+    @Benchmark
+    public Long verifyOnce() {
+        return jwtTokenUtil.verify(token).map(jwtTokenUtil::getUserId).orElse(null);
+    }
+
+    static JwtTokenUtil newJwtTokenUtil() {
+        JwtTokenUtil util = new JwtTokenUtil();
+        ReflectionTestUtils.setField(util, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(util, "previousJwtSecret", "");
+        util.init();
+        return util;
+    }
+}
@@ -0,0 +1,125 @@
+package com.iwa.notificationservice.benchmark;
+
+import com.iwa.notificationservice.dto.NotificationView;
+import com.iwa.notificationservice.model.Notification;
+import com.iwa.notificationservice.model.NotificationMessage;
+import com.iwa.notificationservice.repository.NotificationRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requêtes de NotificationRepository sur H2 avec 1 million de notifications (100 par utilisateur).
+ * Le schéma est celui des migrations Flyway H2, index compris.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NotificationRepositoryBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int USERS = 10_000;
+    private static final int PAGE_SIZE = 20;
+
+    private ConfigurableApplicationContext context;
+    private NotificationRepository notificationRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(RepositoryBenchmarkConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "logging.level.root=WARN")
+                .run();
+        notificationRepository = context.getBean(NotificationRepository.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        // Un seul contenu partagé, comme pour une notification système envoyée à tous
+        jdbcTemplate.update("INSERT INTO notification_message (id, hash, title, message, created_at) "
+                + "VALUES (1, ?, 'Title', 'Message', CURRENT_TIMESTAMP)", NotificationMessage.hashOf("Title", "Message"));
+        jdbcTemplate.update(
+                "INSERT INTO notification (id, user_id, title, message, message_id, read, created_at) "
+                        + "SELECT X, MOD(X, " + USERS + ") + 1, 'Title', 'Message', 1, MOD(X, 3) = 0, "
+                        + "DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00') "
+                        + "FROM SYSTEM_RANGE(1, " + ROWS + ")");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Notification> findByUserId() {
+        return notificationRepository.findByUserId(randomUserId());
+    }
+
+    @Benchmark
+    public List<NotificationView> findViewsByUserId() {
+        return notificationRepository.findViewsByUserId(randomUserId());
+    }
+
+    @Benchmark
+    public List<Notification> findByUserIdAndReadFalse() {
+        return notificationRepository.findByUserIdAndReadFalse(randomUserId());
+    }
+
+    @Benchmark
+    public long countByUserIdAndReadFalse() {
+        return notificationRepository.countByUserIdAndReadFalse(randomUserId());
+    }
+
+    @Benchmark
+    public List<NotificationView> findFirstPageByUserId() {
+        return notificationRepository.findFirstPageByUserId(randomUserId(), PageRequest.ofSize(PAGE_SIZE));
+    }
+
+    private static long randomUserId() {
+        return ThreadLocalRandom.current().nextLong(1, USERS + 1);
+    }
+
+    // Contexte réduit à la persistance : pas de Kafka, Eureka, sécurité ni serveur web
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, FlywayAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class, TransactionAutoConfiguration.class, JdbcTemplateAutoConfiguration.class})
+    @EntityScan(basePackageClasses = Notification.class)
+    @EnableJpaRepositories(basePackageClasses = NotificationRepository.class)
+    static class RepositoryBenchmarkConfig {
+    }
+}
@@ -0,0 +1,60 @@
+package com.iwa.notificationservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.iwa.notificationservice.model.Notification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation JSON d'une réponse List<Notification>, comme le fait le contrôleur.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationSerializationBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Notification> notifications;
+
+    @Setup
+    public void setUp() {
+        // Mêmes modules que l'ObjectMapper de Spring Boot (dont JavaTimeModule pour createdAt)
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 0, 0);
+        notifications = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Notification notification = new Notification(42L, "Title " + i, "Message body for notification " + i);
+            notification.setId((long) i);
+            notification.setRead(i % 3 == 0);
+            notification.setCreatedAt(now.plusSeconds(i));
+            notifications.add(notification);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(notifications);
+    }
+}
@@ -0,0 +1,32 @@
+package com.iwa.notificationservice.config;
+
+import com.iwa.notificationservice.service.IdempotencyCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Caches des clés d'idempotence récemment vues : relances de POST /notifications et redistributions
+ * Kafka des demandes de suppression de compte.
+ */
+@Configuration
+public class IdempotencyConfig {
+
+    // Clé "userId:idempotencyKey" -> ID de la notification créée (l'entité, modifiable, serait vite périmée)
+    @Bean
+    public IdempotencyCache<Long> notificationIdempotencyCache(
+            @Value("${notification.idempotency.max-entries:100000}") int maxEntries,
+            @Value("${notification.idempotency.ttl:10m}") Duration ttl) {
+        return new IdempotencyCache<>(maxEntries, ttl);
+    }
+
+    // Clé "topic:partition:offset" -> ID de la demande de suppression créée
+    @Bean
+    public IdempotencyCache<Long> deletionRequestIdempotencyCache(
+            @Value("${notification.idempotency.max-entries:100000}") int maxEntries,
+            @Value("${notification.idempotency.ttl:10m}") Duration ttl) {
+        return new IdempotencyCache<>(maxEntries, ttl);
+    }
+}
@@ -1,10 +1,73 @@
 package com.iwa.notificationservice.config;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
 
 @EnableKafka
 @Configuration
 public class KafkaConsumerConfig {
-    // La configuration est gérée par application.yml
-}
\ No newline at end of file
+    // La configuration de base (bootstrap, group, désérialiseurs) est gérée par application.yml
+
+    public static final String DEAD_LETTER_SUFFIX = ".DLT";
+
+    /**
+     * Fabrique de conteneurs en mode batch : le listener reçoit la liste complète des enregistrements
+     * d'un poll, et les offsets ne sont commités qu'après son retour sans erreur.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+
+    /**
+     * Publie un enregistrement en échec sur "topic.DLT", en laissant Kafka choisir la partition
+     * (le DLT n'a pas besoin d'avoir autant de partitions que le topic source).
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer(KafkaTemplate<Object, Object> kafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, exception) -> new TopicPartition(record.topic() + DEAD_LETTER_SUFFIX, -1));
+    }
+
+    /**
+     * Fabrique dédiée au topic notification-events : batch, plusieurs consommateurs en parallèle
+     * (un par partition au plus). L'enregistrement désigné par une BatchListenerFailedException est retenté
+     * puis envoyé seul au DLT ; un message illisible ou refusé par la base y part sans nouvelle tentative.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> notificationEventsContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            DeadLetterPublishingRecoverer deadLetterPublishingRecoverer,
+            @Value("${notification.kafka.notification-events.concurrency:3}") int concurrency) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(deadLetterPublishingRecoverer, new FixedBackOff(1000L, 3));
+        errorHandler.addNotRetryableExceptions(JsonProcessingException.class, IllegalArgumentException.class,
+                DataIntegrityViolationException.class);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+}
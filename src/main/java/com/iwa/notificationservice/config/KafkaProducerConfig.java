@@ -0,0 +1,39 @@
+package com.iwa.notificationservice.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Configuration
+public class KafkaProducerConfig {
+    // La configuration de base (bootstrap, sérialiseurs) est gérée par application.yml
+
+    /**
+     * Template par défaut (outbox, DLT). Déclaré ici car Spring Boot n'en crée plus dès qu'un autre
+     * KafkaTemplate existe.
+     */
+    @Bean
+    @Primary
+    public KafkaTemplate<Object, Object> kafkaTemplate(ProducerFactory<Object, Object> kafkaProducerFactory) {
+        return new KafkaTemplate<>(kafkaProducerFactory);
+    }
+
+    /**
+     * Template des diffusions entre instances, appelé après commit sur le thread de la requête :
+     * max.block.ms court pour qu'un broker indisponible ne bloque pas ce thread 60 s (valeur par défaut de Kafka).
+     * Une diffusion perdue est rattrapée par les TTL des caches.
+     */
+    @Bean
+    public KafkaTemplate<Object, Object> broadcastKafkaTemplate(
+            ProducerFactory<Object, Object> kafkaProducerFactory,
+            @Value("${notification.kafka.broadcast.max-block:500ms}") Duration maxBlock) {
+        return new KafkaTemplate<>(kafkaProducerFactory, Map.of(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlock.toMillis()));
+    }
+}
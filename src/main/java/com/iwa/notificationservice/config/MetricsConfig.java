@@ -0,0 +1,110 @@
+package com.iwa.notificationservice.config;
+
+import com.iwa.notificationservice.security.VerifiedTokenCache;
+import com.iwa.notificationservice.service.IdempotencyCache;
+import com.iwa.notificationservice.service.NotificationListCache;
+import com.iwa.notificationservice.service.NotificationMessageStore;
+import com.iwa.notificationservice.service.NotificationStreamRegistry;
+import com.iwa.notificationservice.service.PendingDeletionIndex;
+import com.iwa.notificationservice.service.ReadMarkBuffer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Métriques applicatives lues à la demande depuis les compteurs existants (aucun coût sur le chemin chaud).
+ * Les métriques HTTP, repositories, Hikari et consommateurs Kafka (dont le lag) sont fournies par Spring Boot Actuator.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder verifiedTokenCacheMetrics(VerifiedTokenCache cache) {
+        return registry -> {
+            FunctionCounter.builder("security.jwt.cache.requests", cache, VerifiedTokenCache::getHitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("security.jwt.cache.requests", cache, VerifiedTokenCache::getMissCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("security.jwt.cache.evictions", cache, VerifiedTokenCache::getEvictionCount)
+                    .register(registry);
+            Gauge.builder("security.jwt.cache.size", cache, VerifiedTokenCache::size)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder notificationListCacheMetrics(NotificationListCache cache) {
+        return registry -> {
+            FunctionCounter.builder("notification.list-cache.requests", cache, NotificationListCache::getHitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("notification.list-cache.requests", cache, NotificationListCache::getMissCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("notification.list-cache.size", cache, NotificationListCache::size)
+                    .register(registry);
+            Gauge.builder("notification.list-cache.weight", cache, NotificationListCache::getWeight)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder notificationMessageStoreMetrics(NotificationMessageStore store) {
+        return registry -> {
+            FunctionCounter.builder("notification.message-cache.requests", store, NotificationMessageStore::getHitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("notification.message-cache.requests", store, NotificationMessageStore::getMissCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("notification.message-cache.size", store, NotificationMessageStore::size)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder notificationStreamMetrics(NotificationStreamRegistry streamRegistry) {
+        return registry -> {
+            Gauge.builder("notification.stream.subscriptions", streamRegistry, NotificationStreamRegistry::getSubscriptionCount)
+                    .register(registry);
+            FunctionCounter.builder("notification.stream.dropped", streamRegistry, NotificationStreamRegistry::getDroppedEventCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder idempotencyCacheMetrics(IdempotencyCache<Long> notificationIdempotencyCache,
+                                               IdempotencyCache<Long> deletionRequestIdempotencyCache) {
+        return registry -> {
+            bindIdempotencyCache(registry, "notification", notificationIdempotencyCache);
+            bindIdempotencyCache(registry, "deletion-request", deletionRequestIdempotencyCache);
+        };
+    }
+
+    private static void bindIdempotencyCache(MeterRegistry registry, String name, IdempotencyCache<?> cache) {
+        FunctionCounter.builder("notification.idempotency.hits", cache, IdempotencyCache::getHitCount)
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("notification.idempotency.size", cache, IdempotencyCache::size)
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder pendingDeletionIndexMetrics(PendingDeletionIndex pendingDeletionIndex) {
+        return registry -> Gauge.builder("notification.deletion-requests.pending-users", pendingDeletionIndex,
+                        PendingDeletionIndex::size)
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder readMarkBufferMetrics(ReadMarkBuffer readMarkBuffer) {
+        return registry -> Gauge.builder("notification.read-buffer.pending", readMarkBuffer, ReadMarkBuffer::size)
+                .register(registry);
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -22,6 +23,7 @@ import static org.springframework.security.config.Customizer.withDefaults;
 
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity // @PreAuthorize sur les opérations réservées aux administrateurs
 public class SecurityConfig {
 
     @Autowired
@@ -44,6 +46,7 @@ public class SecurityConfig {
             )
             .authorizeHttpRequests(authorizeRequests -> authorizeRequests
                     // .requestMatchers("/auth/**").permitAll()  // Public endpoints
+                    .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // Sondes et scraping
                     .anyRequest().authenticated()  // All other endpoints require authentication
             );
 
@@ -1,32 +1,115 @@
 package com.iwa.notificationservice.controller;
 
+import com.iwa.notificationservice.dto.BroadcastRequest;
+import com.iwa.notificationservice.dto.BulkUpdateResult;
+import com.iwa.notificationservice.dto.JobStatus;
+import com.iwa.notificationservice.dto.NotificationPage;
+import com.iwa.notificationservice.dto.NotificationView;
+import com.iwa.notificationservice.dto.UnreadCount;
 import com.iwa.notificationservice.model.Notification;
+import com.iwa.notificationservice.service.JobRegistry;
+import com.iwa.notificationservice.service.NotificationBroadcastService;
+import com.iwa.notificationservice.service.NotificationExportService;
+import com.iwa.notificationservice.service.NotificationPurgeService;
 import com.iwa.notificationservice.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequestMapping("/notifications")
 public class NotificationController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final int MAX_BULK_IDS = 1000;
+
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private static final int MAX_BROADCAST_RECIPIENTS = 1_000_000;
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NotificationExportService notificationExportService;
+
+    @Autowired
+    private NotificationPurgeService notificationPurgeService;
+
+    @Autowired
+    private NotificationBroadcastService notificationBroadcastService;
+
+    @Autowired
+    private JobRegistry jobRegistry;
+
     /**
      * Créer une nouvelle notification.
      *
-     * @param notification La notification à créer.
+     * Avec un en-tête Idempotency-Key, une relance renvoie la notification déjà créée au lieu d'en créer une autre.
+     *
+     * @param notification   La notification à créer.
+     * @param idempotencyKey La clé d'idempotence choisie par le producteur, ou null.
      * @return La notification créée.
      */
     @PostMapping
-    public ResponseEntity<Notification> createNotification(@RequestBody Notification notification) {
+    public ResponseEntity<Notification> createNotification(@RequestBody Notification notification,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey != null) {
+            if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                return ResponseEntity.badRequest().build();
+            }
+            notification.setIdempotencyKey(idempotencyKey);
+        }
         Notification createdNotification = notificationService.createNotification(notification);
         return ResponseEntity.ok(createdNotification);
     }
 
+    /**
+     * Créer plusieurs notifications en une seule requête.
+     *
+     * @param notifications Les notifications à créer (au plus 1000).
+     * @return Les notifications créées.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<Notification>> createNotifications(@RequestBody List<Notification> notifications) {
+        if (notifications.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Notification> createdNotifications = notificationService.createNotifications(notifications);
+        return ResponseEntity.ok(createdNotifications);
+    }
+
+    /**
+     * Diffuser une même notification à une liste ou à une plage d'utilisateurs (administrateurs uniquement).
+     * Les notifications sont créées par tranches en tâche de fond ; la réponse 202 contient l'ID du
+     * traitement, à suivre via GET /notifications/jobs/{jobId}.
+     *
+     * @param request Le titre, le message et les destinataires (au plus 1 000 000).
+     * @return 202 avec l'état du traitement.
+     */
+    @PostMapping("/broadcast")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<JobStatus> broadcast(@RequestBody BroadcastRequest request) {
+        if (!request.isValid(MAX_BROADCAST_RECIPIENTS)) {
+            return ResponseEntity.badRequest().build();
+        }
+        JobStatus job = notificationBroadcastService.startBroadcast(request);
+        return ResponseEntity.accepted().location(URI.create("/notifications/jobs/" + job.id())).body(job);
+    }
+
     /**
      * Récupérer toutes les notifications d'un utilisateur.
      *
@@ -34,11 +117,78 @@ public class NotificationController {
      * @return La liste des notifications.
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Notification>> getNotificationsByUserId(@PathVariable Long userId) {
-        List<Notification> notifications = notificationService.getNotificationsByUserId(userId);
+    public ResponseEntity<List<NotificationView>> getNotificationsByUserId(@PathVariable Long userId) {
+        List<NotificationView> notifications = notificationService.getNotificationsByUserId(userId);
         return ResponseEntity.ok(notifications);
     }
 
+    /**
+     * Récupérer les notifications d'un utilisateur page par page (pagination par curseur).
+     *
+     * @param userId L'ID de l'utilisateur.
+     * @param cursor Le curseur renvoyé par la page précédente (absent pour la première page).
+     * @param size   La taille de la page (entre 1 et 100).
+     * @return La page de notifications et le curseur de la page suivante.
+     */
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<NotificationPage> getNotificationsPageByUserId(@PathVariable Long userId,
+                                                                         @RequestParam(required = false) String cursor,
+                                                                         @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(notificationService.getNotificationsPage(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            // Curseur mal formé ou falsifié
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * S'abonner aux nouvelles notifications d'un utilisateur (Server-Sent Events).
+     *
+     * @param userId      L'ID de l'utilisateur.
+     * @param lastEventId Le dernier événement reçu, envoyé automatiquement par le navigateur à la reconnexion.
+     * @return Le flux d'événements.
+     */
+    @GetMapping(path = "/user/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(@PathVariable Long userId,
+                                          @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return notificationService.streamNotifications(userId, lastEventId);
+    }
+
+    /**
+     * Exporter toutes les notifications d'un utilisateur en NDJSON, écrites au fil de la lecture en base.
+     *
+     * @param userId L'ID de l'utilisateur.
+     * @return Le flux NDJSON (une notification par ligne).
+     */
+    @GetMapping(path = "/user/{userId}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportNotificationsByUserId(@PathVariable Long userId) {
+        StreamingResponseBody body = out -> notificationExportService.exportByUserId(userId, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Exporter toutes les notifications créées dans un intervalle de dates, en NDJSON (administrateurs uniquement).
+     *
+     * @param from Début de l'intervalle (inclus), au format ISO.
+     * @param to   Fin de l'intervalle (exclue), au format ISO.
+     * @return Le flux NDJSON, ou 400 si l'intervalle est vide.
+     */
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportNotificationsByCreatedAt(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> notificationExportService.exportByCreatedAt(from, to, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * Récupérer toutes les notifications non lues d'un utilisateur.
      *
@@ -46,32 +196,102 @@ public class NotificationController {
      * @return La liste des notifications non lues.
      */
     @GetMapping("/user/{userId}/unread")
-    public ResponseEntity<List<Notification>> getUnreadNotificationsByUserId(@PathVariable Long userId) {
-        List<Notification> unreadNotifications = notificationService.getUnreadNotificationsByUserId(userId);
+    public ResponseEntity<List<NotificationView>> getUnreadNotificationsByUserId(@PathVariable Long userId) {
+        List<NotificationView> unreadNotifications = notificationService.getUnreadNotificationsByUserId(userId);
         return ResponseEntity.ok(unreadNotifications);
     }
 
+    /**
+     * Récupérer le nombre de notifications non lues d'un utilisateur.
+     *
+     * @param userId L'ID de l'utilisateur.
+     * @return Le nombre de notifications non lues.
+     */
+    @GetMapping("/user/{userId}/unread/count")
+    public ResponseEntity<UnreadCount> getUnreadCountByUserId(@PathVariable Long userId) {
+        long count = notificationService.getUnreadCount(userId);
+        return ResponseEntity.ok(new UnreadCount(userId, count));
+    }
+
     /**
      * Marquer une notification comme lue.
+     * En mode write-behind (notification.read-buffer.enabled), le marquage est mis en attente et la réponse
+     * est un 202 sans corps ; il est écrit en base quelques millisecondes plus tard.
      *
      * @param notificationId L'ID de la notification.
-     * @return La notification mise à jour.
+     * @param userId         L'ID de l'utilisateur authentifié (principal du token JWT).
+     * @return La notification mise à jour, ou 202 en mode write-behind.
      */
     @PutMapping("/{notificationId}/read")
-    public ResponseEntity<Notification> markAsRead(@PathVariable Long notificationId) {
+    public ResponseEntity<Notification> markAsRead(@PathVariable Long notificationId,
+                                                   @AuthenticationPrincipal Long userId) {
+        if (userId != null && notificationService.isReadBufferEnabled()) {
+            notificationService.markAsReadDeferred(userId, notificationId);
+            return ResponseEntity.accepted().build();
+        }
         Notification updatedNotification = notificationService.markAsRead(notificationId);
         return ResponseEntity.ok(updatedNotification);
     }
 
+    /**
+     * Marquer comme lues toutes les notifications d'un utilisateur.
+     *
+     * @param userId L'ID de l'utilisateur.
+     * @return Le nombre de notifications mises à jour.
+     */
+    @PutMapping("/user/{userId}/read-all")
+    public ResponseEntity<BulkUpdateResult> markAllAsRead(@PathVariable Long userId) {
+        int updated = notificationService.markAllAsRead(userId);
+        return ResponseEntity.ok(new BulkUpdateResult(updated));
+    }
+
+    /**
+     * Marquer comme lues plusieurs notifications d'un utilisateur.
+     *
+     * @param userId          L'ID de l'utilisateur.
+     * @param notificationIds Les IDs des notifications (au plus 1000).
+     * @return Le nombre de notifications mises à jour.
+     */
+    @PutMapping("/user/{userId}/read")
+    public ResponseEntity<BulkUpdateResult> markAsRead(@PathVariable Long userId,
+                                                       @RequestBody List<Long> notificationIds) {
+        if (notificationIds.size() > MAX_BULK_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        int updated = notificationService.markAsRead(userId, notificationIds);
+        return ResponseEntity.ok(new BulkUpdateResult(updated));
+    }
+
     /**
      * Supprimer toutes les notifications d'un utilisateur.
+     * En mode asynchrone, la purge est faite par tranches en tâche de fond et la réponse 202 contient
+     * l'ID du traitement, à suivre via GET /notifications/jobs/{jobId}.
      *
      * @param userId L'ID de l'utilisateur.
-     * @return Une réponse indiquant le succès.
+     * @param async  true pour une purge asynchrone (gros volumes).
+     * @return 204 une fois supprimées, ou 202 avec l'état du traitement.
      */
     @DeleteMapping("/user/{userId}")
-    public ResponseEntity<Void> deleteNotificationsByUserId(@PathVariable Long userId) {
+    public ResponseEntity<JobStatus> deleteNotificationsByUserId(@PathVariable Long userId,
+                                                                 @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            JobStatus job = notificationPurgeService.startPurge(userId);
+            return ResponseEntity.accepted().location(URI.create("/notifications/jobs/" + job.id())).body(job);
+        }
         notificationService.deleteNotificationsByUserId(userId);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Suivre un traitement asynchrone.
+     *
+     * @param jobId L'ID du traitement.
+     * @return L'état et la progression du traitement, ou 404 s'il est inconnu ou expiré.
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<JobStatus> getJobStatus(@PathVariable String jobId) {
+        return jobRegistry.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.iwa.notificationservice.dto;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.LongStream;
+
+/**
+ * Diffusion d'une même notification à un ensemble d'utilisateurs : une liste d'IDs, ou une plage
+ * [fromUserId, toUserId] (bornes incluses).
+ */
+public record BroadcastRequest(String title, String message, List<Long> userIds, Long fromUserId, Long toUserId) {
+
+    public boolean isValid(long maxRecipients) {
+        if (title == null || message == null) {
+            return false;
+        }
+        if (userIds != null) {
+            return fromUserId == null && toUserId == null && !userIds.isEmpty() && userIds.size() <= maxRecipients
+                    && userIds.stream().noneMatch(Objects::isNull);
+        }
+        // Avec fromUserId <= toUserId, l'écart lu comme non signé est exact même s'il dépasse Long.MAX_VALUE
+        return fromUserId != null && toUserId != null && fromUserId <= toUserId
+                && Long.compareUnsigned(toUserId - fromUserId, maxRecipients) < 0;
+    }
+
+    // Destinataires sans doublon ; une plage n'est jamais matérialisée
+    public LongStream recipients() {
+        if (userIds != null) {
+            return userIds.stream().mapToLong(Long::longValue).distinct();
+        }
+        return LongStream.rangeClosed(fromUserId, toUserId);
+    }
+}
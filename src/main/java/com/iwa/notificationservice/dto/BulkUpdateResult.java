@@ -0,0 +1,7 @@
+package com.iwa.notificationservice.dto;
+
+/**
+ * Résultat d'une mise à jour en masse : nombre de lignes effectivement modifiées.
+ */
+public record BulkUpdateResult(int updated) {
+}
@@ -0,0 +1,9 @@
+package com.iwa.notificationservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Événement publié (via l'outbox) lorsqu'une demande de suppression de compte est approuvée.
+ */
+public record DeletionApprovedEvent(Long requestId, Long userId, LocalDateTime approvedAt) {
+}
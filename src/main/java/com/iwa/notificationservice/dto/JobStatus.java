@@ -0,0 +1,19 @@
+package com.iwa.notificationservice.dto;
+
+import java.time.Instant;
+
+/**
+ * État d'un traitement asynchrone, renvoyé à la soumission (202) puis par le endpoint de suivi.
+ *
+ * @param processed Nombre d'éléments déjà traités.
+ * @param total     Nombre d'éléments à traiter, ou null s'il n'est pas connu à l'avance.
+ */
+public record JobStatus(String id, String type, State state, long processed, Long total,
+                        Instant startedAt, Instant finishedAt, String error) {
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,52 @@
+package com.iwa.notificationservice.dto;
+
+import com.iwa.notificationservice.model.Notification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position opaque dans la liste des notifications d'un utilisateur, triée par (createdAt, id) décroissants.
+ * Le client ne fait que renvoyer la valeur encodée reçue dans la page précédente.
+ */
+public record NotificationCursor(LocalDateTime createdAt, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static NotificationCursor of(Notification notification) {
+        return new NotificationCursor(notification.getCreatedAt(), notification.getId());
+    }
+
+    public static NotificationCursor of(NotificationView notification) {
+        return new NotificationCursor(notification.createdAt(), notification.id());
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décode un curseur reçu d'un client.
+     *
+     * @param encoded Le curseur encodé.
+     * @return Le curseur décodé.
+     * @throws IllegalArgumentException si le curseur est mal formé.
+     */
+    public static NotificationCursor decode(String encoded) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + encoded);
+            }
+            return new NotificationCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + encoded, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.iwa.notificationservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.iwa.notificationservice.model.Notification;
+
+/**
+ * Événement publié sur le topic notification-events par les autres services.
+ * Les clés courtes (u, t, m, k) sont acceptées pour réduire la taille des messages.
+ * La clé d'idempotence est facultative : un événement republié avec la même clé ne crée pas de doublon.
+ */
+public record NotificationEvent(@JsonAlias("u") Long userId,
+                                @JsonAlias("t") String title,
+                                @JsonAlias("m") String message,
+                                @JsonAlias("k") String idempotencyKey) {
+
+    public Notification toNotification() {
+        Notification notification = new Notification(userId, title, message);
+        notification.setIdempotencyKey(idempotencyKey);
+        return notification;
+    }
+}
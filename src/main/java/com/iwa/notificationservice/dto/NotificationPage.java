@@ -0,0 +1,10 @@
+package com.iwa.notificationservice.dto;
+
+import java.util.List;
+
+/**
+ * Une page de notifications et le curseur permettant de demander la suivante
+ * (null lorsqu'il n'y a plus de résultats).
+ */
+public record NotificationPage(List<NotificationView> items, String nextCursor) {
+}
@@ -0,0 +1,14 @@
+package com.iwa.notificationservice.dto;
+
+import com.iwa.notificationservice.model.Notification;
+
+/**
+ * Référence à une notification créée, relayée aux autres instances pour leurs flux SSE.
+ * Seule l'instance où le destinataire est abonné relit la notification en base.
+ */
+public record NotificationStreamEvent(Long id, Long userId) {
+
+    public static NotificationStreamEvent of(Notification notification) {
+        return new NotificationStreamEvent(notification.getId(), notification.getUserId());
+    }
+}
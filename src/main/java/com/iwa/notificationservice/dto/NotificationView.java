@@ -0,0 +1,24 @@
+package com.iwa.notificationservice.dto;
+
+import com.iwa.notificationservice.model.Notification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vue en lecture seule d'une notification, renvoyée par les endpoints de liste.
+ * Construite directement par les requêtes JPQL (expression constructeur) : aucune entité n'est chargée
+ * dans le contexte de persistance. Le JSON produit est identique à celui de l'entité.
+ */
+public record NotificationView(Long id, Long userId, String title, String message, boolean read,
+                               LocalDateTime createdAt) {
+
+    public static NotificationView of(Notification notification) {
+        return new NotificationView(notification.getId(), notification.getUserId(), notification.getTitle(),
+                notification.getMessage(), notification.isRead(), notification.getCreatedAt());
+    }
+
+    // Copie marquée comme lue (marquage encore en attente d'écriture)
+    public NotificationView asRead() {
+        return read ? this : new NotificationView(id, userId, title, message, true, createdAt);
+    }
+}
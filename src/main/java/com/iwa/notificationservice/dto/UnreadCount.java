@@ -0,0 +1,7 @@
+package com.iwa.notificationservice.dto;
+
+/**
+ * Nombre de notifications non lues d'un utilisateur (badge).
+ */
+public record UnreadCount(Long userId, long count) {
+}
@@ -7,12 +7,29 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 
 @Entity
+// Les index sont créés par les migrations Flyway ; ils sont déclarés ici pour documentation.
+// uk_deletion_request_pending_user (une seule demande en attente par utilisateur, migration V8) est un index
+// unique partiel (WHERE status = 0) qui n'a pas d'équivalent JPA.
+@Table(indexes = {
+        // findByStatus (créé par la migration Flyway V2)
+        @Index(name = "idx_deletion_request_status_time", columnList = "status, request_time"),
+        // Demandes approuvées à purger (index partiel sur Postgres, migration V5)
+        @Index(name = "idx_deletion_request_purge_pending", columnList = "status, purge_completed_at"),
+        // Unicité des clés d'idempotence (index partiel sur Postgres, migration V7)
+        @Index(name = "uk_deletion_request_idempotency", columnList = "idempotency_key", unique = true)
+})
 public class AccountDeletionRequest {
 
+    // Séquence avec optimiseur pooled, comme Notification
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_deletion_request_seq")
+    @SequenceGenerator(name = "account_deletion_request_seq", sequenceName = "account_deletion_request_seq",
+            allocationSize = 50)
     private Long id;
 
     private Long userId; // ID de l'utilisateur demandant la suppression
@@ -23,6 +40,16 @@ public class AccountDeletionRequest {
 
     private RequestStatus status;
 
+    // Point de reprise de la purge des notifications, mis à jour avec chaque lot supprimé
+    private Long purgeMaxId; // Plus grand ID de notification concerné, fixé au premier lot
+
+    private long purgedCount;
+
+    private LocalDateTime purgeCompletedAt;
+
+    // Position de l'enregistrement Kafka à l'origine de la demande ("topic:partition:offset")
+    private String idempotencyKey;
+
     public enum RequestStatus {
         PENDING,
         APPROVED,
@@ -68,4 +95,36 @@ public class AccountDeletionRequest {
     public void setStatus(RequestStatus status) {
         this.status = status;
     }
-}
\ No newline at end of file
+
+    public Long getPurgeMaxId() {
+        return purgeMaxId;
+    }
+
+    public void setPurgeMaxId(Long purgeMaxId) {
+        this.purgeMaxId = purgeMaxId;
+    }
+
+    public long getPurgedCount() {
+        return purgedCount;
+    }
+
+    public void setPurgedCount(long purgedCount) {
+        this.purgedCount = purgedCount;
+    }
+
+    public LocalDateTime getPurgeCompletedAt() {
+        return purgeCompletedAt;
+    }
+
+    public void setPurgeCompletedAt(LocalDateTime purgeCompletedAt) {
+        this.purgeCompletedAt = purgeCompletedAt;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+}
@@ -0,0 +1,37 @@
+package com.iwa.notificationservice.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * Verrou partagé entre les instances pour un traitement planifié, pris sous forme de bail :
+ * un verrou dont locked_until est dépassé (instance arrêtée en cours de traitement) peut être repris.
+ * Les lignes sont créées par les migrations (une par traitement).
+ */
+@Entity
+public class JobLock {
+
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil;
+
+    @Column(nullable = false)
+    private String lockedBy;
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public String getLockedBy() {
+        return lockedBy;
+    }
+}
@@ -1,17 +1,43 @@
 package com.iwa.notificationservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+// Les index sont créés par les migrations Flyway ; ils sont déclarés ici pour documentation.
+// idx_notification_user_unread est un index partiel (WHERE read = false) qui n'a pas d'équivalent JPA.
+@Table(indexes = {
+        // findByUserId, deleteByUserId et la pagination par keyset
+        @Index(name = "idx_notification_user_created", columnList = "user_id, created_at DESC, id DESC"),
+        // Purge par tranches d'IDs et borne haute d'une purge
+        @Index(name = "idx_notification_user_id", columnList = "user_id, id"),
+        // Export par plage de dates
+        @Index(name = "idx_notification_created", columnList = "created_at, id"),
+        // Unicité des clés d'idempotence par utilisateur (index partiel sur Postgres, migration V7)
+        @Index(name = "uk_notification_idempotency", columnList = "user_id, idempotency_key", unique = true),
+        // Reprise de message_id et suppression des contenus qui ne sont plus référencés
+        @Index(name = "idx_notification_message", columnList = "message_id")
+})
 public class Notification {
 
+    // Séquence avec optimiseur pooled : un aller-retour pour 50 IDs, et le batching JDBC reste possible
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_seq")
+    @SequenceGenerator(name = "notification_seq", sequenceName = "notification_seq", allocationSize = 50)
     private Long id;
 
     private Long userId; // ID de l'utilisateur associé à la notification
 
+    // Contenu partagé (table notification_message). Absent des lignes pas encore reprises
+    // (NotificationMessageBackfillService) : le titre et le message sont alors lus dans les colonnes d'origine
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "message_id")
+    @JsonIgnore
+    private NotificationMessage content;
+
+    // Colonnes d'origine, toujours écrites tant que la migration V6 n'est pas contractée : les instances de la
+    // version précédente les lisent encore pendant un déploiement progressif
     private String title;
 
     private String message;
@@ -20,6 +46,9 @@ public class Notification {
 
     private LocalDateTime createdAt;
 
+    // Fournie par le producteur : une relance avec la même clé renvoie la notification déjà créée
+    private String idempotencyKey;
+
     // Constructors
     public Notification() {
         this.createdAt = LocalDateTime.now();
@@ -52,19 +81,31 @@ public class Notification {
     }
 
     public String getTitle() {
-        return title;
+        return content != null ? content.getTitle() : title;
     }
 
     public void setTitle(String title) {
+        this.message = getMessage();
         this.title = title;
+        this.content = null;
     }
 
     public String getMessage() {
-        return message;
+        return content != null ? content.getMessage() : message;
     }
 
     public void setMessage(String message) {
+        this.title = getTitle();
         this.message = message;
+        this.content = null;
+    }
+
+    public NotificationMessage getContent() {
+        return content;
+    }
+
+    public void setContent(NotificationMessage content) {
+        this.content = content;
     }
 
     public boolean isRead() {
@@ -82,4 +123,12 @@ public class Notification {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
 }
\ No newline at end of file
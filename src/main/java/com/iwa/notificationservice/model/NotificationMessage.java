@@ -0,0 +1,90 @@
+package com.iwa.notificationservice.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Contenu (titre + message) d'une notification, stocké une seule fois quel que soit le nombre de
+ * notifications qui le partagent. Adressé par l'empreinte SHA-256 de son contenu ; jamais modifié.
+ */
+@Entity
+@Immutable
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_notification_message_hash", columnNames = "hash"))
+public class NotificationMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_message_seq")
+    @SequenceGenerator(name = "notification_message_seq", sequenceName = "notification_message_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String hash;
+
+    private String title;
+
+    private String message;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    protected NotificationMessage() {
+    }
+
+    public NotificationMessage(String title, String message) {
+        this.hash = hashOf(title, message);
+        this.title = title;
+        this.message = message;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * Empreinte du contenu, identique à celle calculée par la migration V6 pour les notifications existantes.
+     * 'N' encode une valeur nulle, 'S' une valeur présente ; la longueur du titre (en caractères) le sépare
+     * du message sans ambiguïté.
+     *
+     * @return L'empreinte SHA-256 en hexadécimal (64 caractères).
+     */
+    public static String hashOf(String title, String message) {
+        String canonical = (title == null ? "N" : "S" + title.codePointCount(0, title.length()) + ":" + title)
+                + (message == null ? "N" : "S" + message);
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -2,12 +2,41 @@ package com.iwa.notificationservice.repository;
 
 import com.iwa.notificationservice.model.AccountDeletionRequest;
 import com.iwa.notificationservice.model.AccountDeletionRequest.RequestStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AccountDeletionRequestRepository extends JpaRepository<AccountDeletionRequest, Long> {
     List<AccountDeletionRequest> findByStatus(RequestStatus status);
-}
\ No newline at end of file
+
+    // Utilisateurs ayant une demande dans cet état, sans charger les demandes (chargement de PendingDeletionIndex)
+    @Query("SELECT DISTINCT r.userId FROM AccountDeletionRequest r WHERE r.status = :status")
+    List<Long> findUserIdsByStatus(@Param("status") RequestStatus status);
+
+    // Parmi ces utilisateurs, ceux qui ont déjà une demande dans cet état (créée par une autre instance)
+    @Query("SELECT DISTINCT r.userId FROM AccountDeletionRequest r WHERE r.status = :status AND r.userId IN :userIds")
+    List<Long> findUserIdsByStatusAndUserIdIn(@Param("status") RequestStatus status,
+                                              @Param("userIds") Collection<Long> userIds);
+
+    // Demandes approuvées dont la purge des notifications n'est pas terminée
+    @Query("SELECT r.id FROM AccountDeletionRequest r WHERE r.status = :status AND r.purgeCompletedAt IS NULL ORDER BY r.id")
+    List<Long> findIdsToPurge(@Param("status") RequestStatus status, Pageable pageable);
+
+    // Verrouille la demande le temps d'un lot : deux instances ne purgent pas la même demande en parallèle
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM AccountDeletionRequest r WHERE r.id = :id")
+    Optional<AccountDeletionRequest> findByIdForUpdate(@Param("id") Long id);
+
+    // Clés d'idempotence déjà enregistrées parmi celles d'un poll Kafka (enregistrements redistribués)
+    @Query("SELECT r.idempotencyKey FROM AccountDeletionRequest r WHERE r.idempotencyKey IN :keys")
+    List<String> findExistingIdempotencyKeys(@Param("keys") Collection<String> keys);
+}
@@ -0,0 +1,29 @@
+package com.iwa.notificationservice.repository;
+
+import com.iwa.notificationservice.model.JobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    // Prend le verrou s'il est libre ou expiré, en un seul UPDATE (atomique) ; retourne 0 s'il est détenu ailleurs
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLock l SET l.lockedUntil = :until, l.lockedBy = :owner "
+            + "WHERE l.name = :name AND l.lockedUntil < :now")
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner,
+                   @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    // Libère le verrou, seulement s'il est toujours détenu par cette instance
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLock l SET l.lockedUntil = :now WHERE l.name = :name AND l.lockedBy = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
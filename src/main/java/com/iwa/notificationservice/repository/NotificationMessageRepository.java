@@ -0,0 +1,43 @@
+package com.iwa.notificationservice.repository;
+
+import com.iwa.notificationservice.model.NotificationMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NotificationMessageRepository extends JpaRepository<NotificationMessage, Long> {
+
+    // Contenu existant par empreinte (contrainte unique uk_notification_message_hash)
+    Optional<NotificationMessage> findByHash(String hash);
+
+    // Contenus existants d'un lot, en une requête
+    List<NotificationMessage> findByHashIn(Collection<String> hashes);
+
+    // Suppression des contenus plus référencés : bornes du parcours par plages d'IDs
+    @Query("SELECT MIN(m.id) FROM NotificationMessage m")
+    Long findMinId();
+
+    @Query("SELECT MAX(m.id) FROM NotificationMessage m")
+    Long findMaxId();
+
+    // Supprimer les contenus d'une plage d'IDs qui ne sont plus référencés par aucune notification (via
+    // idx_notification_message), créés avant une date. Requête native : NotificationMessage est @Immutable.
+    // Échoue sur fk_notification_message si une notification référence l'un d'eux entre-temps
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM notification_message m WHERE m.id BETWEEN :fromId AND :toId"
+            + " AND m.created_at < :before"
+            + " AND NOT EXISTS (SELECT 1 FROM notification n WHERE n.message_id = m.id)", nativeQuery = true)
+    int deleteUnreferencedBetween(@Param("fromId") Long fromId,
+                                  @Param("toId") Long toId,
+                                  @Param("before") LocalDateTime before);
+}
@@ -1,20 +1,214 @@
 package com.iwa.notificationservice.repository;
 
+import com.iwa.notificationservice.dto.NotificationView;
 import com.iwa.notificationservice.model.Notification;
+import com.iwa.notificationservice.model.NotificationMessage;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
 
-    // Récupérer toutes les notifications d'un utilisateur
+    // Nombre de lignes lues par aller-retour lors d'un export
+    int EXPORT_FETCH_SIZE = 500;
+
+    // Expression constructeur commune aux requêtes de lecture : des records, pas d'entités gérées.
+    // Le titre et le message sont lus par jointure sur le contenu partagé (notification_message), ou dans les
+    // colonnes d'origine pour les lignes dont message_id n'est pas encore renseigné.
+    String VIEW_SELECT = "SELECT new com.iwa.notificationservice.dto.NotificationView(n.id, n.userId,"
+            + " COALESCE(c.title, n.title), COALESCE(c.message, n.message), n.read, n.createdAt)"
+            + " FROM Notification n LEFT JOIN n.content c";
+
+    // Récupérer toutes les notifications d'un utilisateur (contenu chargé dans la même requête)
+    @EntityGraph(attributePaths = "content")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Notification> findByUserId(Long userId);
 
     // Récupérer toutes les notifications non lues d'un utilisateur
+    @EntityGraph(attributePaths = "content")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Notification> findByUserIdAndReadFalse(Long userId);
 
-    // Supprimer toutes les notifications d'un utilisateur
-    void deleteByUserId(Long userId);
-}
\ No newline at end of file
+    // Vue en lecture seule de toutes les notifications d'un utilisateur (endpoints de liste)
+    @Query(VIEW_SELECT + " WHERE n.userId = :userId")
+    List<NotificationView> findViewsByUserId(@Param("userId") Long userId);
+
+    // Vue en lecture seule des notifications non lues d'un utilisateur (endpoints de liste)
+    @Query(VIEW_SELECT + " WHERE n.userId = :userId AND n.read = false")
+    List<NotificationView> findUnreadViewsByUserId(@Param("userId") Long userId);
+
+    // Notification déjà créée avec cette clé d'idempotence (relance d'un producteur)
+    Optional<Notification> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    // Notifications déjà créées avec l'une de ces clés par l'un de ces utilisateurs : les deux colonnes de l'index
+    // d'idempotence sont filtrées (la paire exacte userId + clé est comparée par l'appelant)
+    List<Notification> findByUserIdInAndIdempotencyKeyIn(Collection<Long> userIds, Collection<String> idempotencyKeys);
+
+    // Compter les notifications non lues d'un utilisateur (initialisation du compteur en mémoire)
+    long countByUserIdAndReadFalse(Long userId);
+
+    // Première page des notifications d'un utilisateur, des plus récentes aux plus anciennes
+    @Query(VIEW_SELECT + " WHERE n.userId = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationView> findFirstPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // Page suivante par keyset : uniquement les lignes strictement plus anciennes que le curseur, sans OFFSET
+    @Query(VIEW_SELECT + " WHERE n.userId = :userId"
+            + " AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id))"
+            + " ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationView> findPageByUserIdBefore(@Param("userId") Long userId,
+                                                  @Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("id") Long id,
+                                                  Pageable pageable);
+
+    // Notifications plus récentes qu'un curseur, de la plus ancienne à la plus récente (relecture SSE)
+    // Entités sans snapshot de dirty checking : elles ne sont que sérialisées vers le flux
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT n FROM Notification n LEFT JOIN FETCH n.content WHERE n.userId = :userId"
+            + " AND (n.createdAt > :createdAt OR (n.createdAt = :createdAt AND n.id > :id))"
+            + " ORDER BY n.createdAt ASC, n.id ASC")
+    List<Notification> findPageByUserIdAfter(@Param("userId") Long userId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+
+    // Notifications créées sur une autre instance, relues pour les flux SSE ouverts ici
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT n FROM Notification n LEFT JOIN FETCH n.content WHERE n.id IN :ids ORDER BY n.createdAt, n.id")
+    List<Notification> findWithContentByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Export : curseur côté base (fetch size) pour ne jamais matérialiser tout le résultat en mémoire.
+    // À consommer dans une transaction, en fermant le Stream.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT n FROM Notification n LEFT JOIN FETCH n.content WHERE n.userId = :userId ORDER BY n.createdAt, n.id")
+    Stream<Notification> streamByUserId(@Param("userId") Long userId);
+
+    // Export de toutes les notifications créées dans [from, to), dans l'ordre de création
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT n FROM Notification n LEFT JOIN FETCH n.content"
+            + " WHERE n.createdAt >= :from AND n.createdAt < :to ORDER BY n.createdAt, n.id")
+    Stream<Notification> streamByCreatedAtBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Marquer comme lues toutes les notifications non lues d'un utilisateur, en un seul UPDATE
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.read = true WHERE n.userId = :userId AND n.read = false")
+    int markAllAsReadByUserId(@Param("userId") Long userId);
+
+    // Marquer une notification comme lue : 1 si elle vient de passer à lue, 0 si elle l'était déjà ou n'existe pas
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.read = true WHERE n.id = :id AND n.read = false")
+    int markAsReadById(@Param("id") Long id);
+
+    // Marquer comme lues les notifications listées, limitées à celles de l'utilisateur, en un seul UPDATE
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.read = true"
+            + " WHERE n.userId = :userId AND n.id IN :ids AND n.read = false")
+    int markAsReadByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    // Supprimer toutes les notifications d'un utilisateur en un seul DELETE, sans charger les entités
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Notification n WHERE n.userId = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+
+    // Borne haute d'une purge : les notifications créées après son démarrage ne sont pas concernées
+    @Query("SELECT MAX(n.id) FROM Notification n WHERE n.userId = :userId")
+    Long findMaxIdByUserId(@Param("userId") Long userId);
+
+    // Compter les notifications d'un utilisateur (progression d'une purge)
+    long countByUserId(Long userId);
+
+    // Les plus petits IDs d'un utilisateur jusqu'à une borne : le prochain lot d'une purge par tranches
+    @Query("SELECT n.id FROM Notification n WHERE n.userId = :userId AND n.id <= :maxId ORDER BY n.id")
+    List<Long> findIdsByUserIdUpTo(@Param("userId") Long userId, @Param("maxId") Long maxId, Pageable pageable);
+
+    // Supprimer une tranche d'IDs d'un utilisateur en un seul DELETE
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Notification n WHERE n.userId = :userId AND n.id BETWEEN :fromId AND :toId")
+    int deleteByUserIdAndIdBetween(@Param("userId") Long userId, @Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // Rétention : plus petit ID existant, point de départ du parcours par plages d'IDs
+    @Query("SELECT MIN(n.id) FROM Notification n")
+    Long findMinId();
+
+    // Reprise de message_id (migration V6) : plus grand ID existant, borne haute d'une passe
+    @Query("SELECT MAX(n.id) FROM Notification n")
+    Long findMaxId();
+
+    // Reprise de message_id : plus petit ID restant à reprendre (via idx_notification_message), point de départ
+    @Query("SELECT MIN(n.id) FROM Notification n WHERE n.content IS NULL")
+    Long findMinIdWithoutContent();
+
+    // Reprise de message_id : reste-t-il des notifications sans contenu partagé ?
+    boolean existsByContentIsNull();
+
+    // Reprise de message_id : notifications sans contenu partagé d'une plage d'IDs (titre et message d'origine)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT n FROM Notification n WHERE n.id BETWEEN :fromId AND :toId AND n.content IS NULL")
+    List<Notification> findWithoutContentBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // Reprise de message_id : associer un contenu partagé aux notifications listées, en un seul UPDATE
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.content = :content WHERE n.id IN :ids AND n.content IS NULL")
+    int setContentWhereMissing(@Param("content") NotificationMessage content, @Param("ids") Collection<Long> ids);
+
+    // Rétention : plus grand ID créé avant la date limite (via idx_notification_created), borne haute du parcours
+    @Query("SELECT MAX(n.id) FROM Notification n WHERE n.createdAt < :before")
+    Long findMaxIdCreatedBefore(@Param("before") LocalDateTime before);
+
+    // Rétention : utilisateurs concernés par la suppression d'une plage (invalidation de leurs listes en cache)
+    @Query("SELECT DISTINCT n.userId FROM Notification n"
+            + " WHERE n.id BETWEEN :fromId AND :toId AND n.read = true AND n.createdAt < :before")
+    List<Long> findUserIdsOfReadBetween(@Param("fromId") Long fromId,
+                                        @Param("toId") Long toId,
+                                        @Param("before") LocalDateTime before);
+
+    // Rétention : supprimer les notifications lues et expirées d'une plage d'IDs (parcours de la clé primaire)
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Notification n"
+            + " WHERE n.id BETWEEN :fromId AND :toId AND n.read = true AND n.createdAt < :before")
+    int deleteReadBetween(@Param("fromId") Long fromId,
+                          @Param("toId") Long toId,
+                          @Param("before") LocalDateTime before);
+
+    // Rétention : utilisateurs ayant plus de notifications que le maximum autorisé
+    @Query("SELECT n.userId FROM Notification n GROUP BY n.userId HAVING COUNT(n) > :max")
+    List<Long> findUserIdsWithMoreThan(@Param("max") long max);
+
+    // Rétention : IDs d'un utilisateur au-delà du curseur (la plus récente notification à supprimer incluse)
+    @Query("SELECT n.id FROM Notification n WHERE n.userId = :userId"
+            + " AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id <= :id))"
+            + " ORDER BY n.id")
+    List<Long> findIdsByUserIdUpToCursor(@Param("userId") Long userId,
+                                         @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id,
+                                         Pageable pageable);
+
+    // Supprimer une tranche d'IDs d'un utilisateur au-delà du curseur, en un seul DELETE
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Notification n WHERE n.userId = :userId AND n.id BETWEEN :fromId AND :toId"
+            + " AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id <= :id))")
+    int deleteByUserIdAndIdBetweenUpToCursor(@Param("userId") Long userId,
+                                             @Param("fromId") Long fromId,
+                                             @Param("toId") Long toId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id);
+}
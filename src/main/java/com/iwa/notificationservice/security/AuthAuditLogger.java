@@ -0,0 +1,77 @@
+package com.iwa.notificationservice.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Événements d'audit d'authentification, écrits sur le logger "auth.audit" au format clé=valeur.
+ * Les événements de succès sont au niveau DEBUG et ne coûtent rien s'il est désactivé ; les tokens
+ * invalides sont échantillonnés (un événement par intervalle, avec le nombre d'événements supprimés).
+ * L'écriture passe par l'appender asynchrone configuré dans logback-spring.xml : le thread de requête
+ * ne fait jamais d'I/O.
+ */
+@Component
+public class AuthAuditLogger {
+
+    static final String LOGGER_NAME = "auth.audit";
+
+    private static final Logger audit = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final long sampleIntervalMillis;
+    private final Clock clock;
+
+    private final AtomicLong nextInvalidTokenLogAt = new AtomicLong();
+    private final LongAdder suppressedInvalidTokens = new LongAdder();
+
+    @Autowired
+    public AuthAuditLogger(@Value("${security.audit.invalid-token-sample-interval:10s}") Duration sampleInterval) {
+        this(sampleInterval, Clock.systemUTC());
+    }
+
+    AuthAuditLogger(Duration sampleInterval, Clock clock) {
+        this.sampleIntervalMillis = sampleInterval.toMillis();
+        this.clock = clock;
+    }
+
+    public void authenticated(Long userId, String path) {
+        if (audit.isDebugEnabled()) {
+            audit.debug("event=auth_success userId={} path={}", userId, path);
+        }
+    }
+
+    public void missingToken(String path) {
+        if (audit.isTraceEnabled()) {
+            audit.trace("event=auth_missing_token path={}", path);
+        }
+    }
+
+    public void invalidToken(String path) {
+        if (!audit.isWarnEnabled()) {
+            return;
+        }
+        if (!tryAcquireInvalidTokenSample()) {
+            suppressedInvalidTokens.increment();
+            return;
+        }
+        audit.warn("event=auth_invalid_token path={} suppressed={}", path, suppressedInvalidTokens.sumThenReset());
+    }
+
+    // Un seul thread gagne le créneau de l'intervalle courant ; les autres ne font qu'incrémenter un compteur
+    boolean tryAcquireInvalidTokenSample() {
+        long now = clock.millis();
+        long next = nextInvalidTokenLogAt.get();
+        return now >= next && nextInvalidTokenLogAt.compareAndSet(next, now + sampleIntervalMillis);
+    }
+
+    long getSuppressedInvalidTokenCount() {
+        return suppressedInvalidTokens.sum();
+    }
+}
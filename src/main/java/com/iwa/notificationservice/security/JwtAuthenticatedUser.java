@@ -2,8 +2,10 @@ package com.iwa.notificationservice.security;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.util.Collection;
+import java.util.List;
 
 public class JwtAuthenticatedUser implements Authentication {
 
@@ -11,14 +13,22 @@ public class JwtAuthenticatedUser implements Authentication {
 
     private Long id;
 
+    private boolean admin;
+
     public JwtAuthenticatedUser(Long id) {
+        this(id, false);
+    }
+
+    public JwtAuthenticatedUser(Long id, boolean admin) {
         this.id = id;
+        this.admin = admin;
     }
 
     // Implémentez les méthodes de l'interface Authentication
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return null; // Pas de rôles spécifiques
+        // Seuls les administrateurs (security.admin-user-ids) ont un rôle
+        return admin ? List.of(new SimpleGrantedAuthority("ROLE_ADMIN")) : List.of();
     }
 
     @Override
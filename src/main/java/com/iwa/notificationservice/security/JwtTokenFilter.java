@@ -1,15 +1,24 @@
 package com.iwa.notificationservice.security;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
 
 @Component
 public class JwtTokenFilter extends OncePerRequestFilter {
@@ -17,36 +26,76 @@ public class JwtTokenFilter extends OncePerRequestFilter {
     @Autowired
     private JwtTokenUtil jwtTokenUtil;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private AuthAuditLogger authAuditLogger;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    // Utilisateurs autorisés sur les opérations globales (diffusion, export de toutes les notifications)
+    @Value("${security.admin-user-ids:}")
+    private Set<Long> adminUserIds = Set.of();
+
+    private Timer verifyTimer;
+
+    @PostConstruct
+    public void initMetrics() {
+        // Registre global (sans effet s'il est vide) quand aucun MeterRegistry n'est configuré, ex. dans les tests @WebMvcTest
+        verifyTimer = Timer.builder("security.jwt.verify")
+                .description("Vérification de la signature et parsing des claims d'un JWT (hors cache)")
+                .publishPercentileHistogram()
+                .register(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
-        String path = request.getRequestURI();
-        System.out.println("Processing request for path: " + path);
-
         String header = request.getHeader("Authorization");
         if (header == null || !header.startsWith("Bearer ")) {
-            System.out.println("No Authorization header or invalid format");
+            authAuditLogger.missingToken(request.getRequestURI());
             filterChain.doFilter(request, response);
             return;
         }
 
         String token = header.substring(7);
-        if (!jwtTokenUtil.validate(token)) {
-            System.out.println("Invalid JWT token");
+        Long userId = resolveUserId(token);
+        if (userId == null) {
+            authAuditLogger.invalidToken(request.getRequestURI());
             filterChain.doFilter(request, response);
             return;
         }
 
-        Long userId = jwtTokenUtil.getUserId(token);
-
-        System.out.println("User authenticated: " + userId);
-        JwtAuthenticatedUser authentication = new JwtAuthenticatedUser(userId);
+        authAuditLogger.authenticated(userId, request.getRequestURI());
+        JwtAuthenticatedUser authentication = new JwtAuthenticatedUser(userId, adminUserIds.contains(userId));
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
         filterChain.doFilter(request, response);
     }
 
+    // Les tokens déjà vérifiés sont servis depuis le cache, sans vérification HMAC ni parsing des claims
+    private Long resolveUserId(String token) {
+        Long cachedUserId = verifiedTokenCache.get(token);
+        if (cachedUserId != null) {
+            return cachedUserId;
+        }
+
+        // Une seule vérification HMAC et un seul parsing des claims par requête
+        Timer.Sample sample = Timer.start();
+        Optional<Claims> claims = jwtTokenUtil.verify(token);
+        sample.stop(verifyTimer);
+        if (claims.isEmpty()) {
+            return null;
+        }
+
+        Long userId = jwtTokenUtil.getUserId(claims.get());
+        verifiedTokenCache.put(token, userId, claims.get().getExpiration());
+        return userId;
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getRequestURI();
@@ -2,50 +2,111 @@ package com.iwa.notificationservice.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.jsonwebtoken.security.WeakKeyException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JwtTokenUtil {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenUtil.class);
+
     @Value("${security.jwt.secret}")
     private String jwtSecret;
 
+    // Ancien secret encore accepté pendant une rotation de clé (vide = pas de rotation en cours)
+    @Value("${security.jwt.previous-secret:}")
+    private String previousJwtSecret;
+
     private final String jwtIssuer = "com.iwa.userservice";
 
+    // Clé et parsers dérivés une seule fois au démarrage : ils sont immuables et thread-safe
+    private SecretKey signingKey;
+
+    private List<JwtParser> parsers = List.of();
+
+    @PostConstruct
+    public void init() {
+        signingKey = buildKey(jwtSecret);
+
+        List<JwtParser> candidates = new ArrayList<>(2);
+        if (signingKey != null) {
+            candidates.add(Jwts.parserBuilder().setSigningKey(signingKey).build());
+        }
+        if (previousJwtSecret != null && !previousJwtSecret.isBlank()) {
+            SecretKey previousKey = buildKey(previousJwtSecret);
+            if (previousKey != null) {
+                candidates.add(Jwts.parserBuilder().setSigningKey(previousKey).build());
+            }
+        }
+        parsers = List.copyOf(candidates);
+    }
+
     public String generateAccessToken(Long userId) {
-        SecretKey jwtkey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        if (signingKey == null) {
+            throw new WeakKeyException("The configured JWT secret is too short to sign tokens");
+        }
         return Jwts.builder()
                 .setSubject(String.valueOf(userId))
                 .setIssuer(jwtIssuer)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + 86400000)) // 24 heures
-                .signWith(jwtkey,SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public Long getUserId(String token) {
-        SecretKey jwtkey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(jwtkey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Vérifie la signature du token et retourne ses claims en un seul passage.
+     * Le secret courant est essayé en premier, puis le secret précédent s'il est configuré.
+     *
+     * @param token Le token JWT brut (sans le préfixe "Bearer ").
+     * @return Les claims du token, ou vide si le token est invalide ou expiré.
+     */
+    public Optional<Claims> verify(String token) {
+        for (JwtParser parser : parsers) {
+            try {
+                return Optional.of(parser.parseClaimsJws(token).getBody());
+            } catch (SignatureException e) {
+                // Signé avec une autre clé : on tente la clé suivante
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("JWT rejected: {}", e.getMessage());
+                return Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
 
+    public Long getUserId(Claims claims) {
         return Long.parseLong(claims.getSubject());
     }
 
+    public Long getUserId(String token) {
+        return verify(token)
+                .map(this::getUserId)
+                .orElseThrow(() -> new JwtException("Invalid JWT token"));
+    }
+
     public boolean validate(String token) {
-        SecretKey jwtkey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return verify(token).isPresent();
+    }
+
+    private SecretKey buildKey(String secret) {
         try {
-            Jwts.parserBuilder().setSigningKey(jwtkey).build().parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            System.out.println(e.getMessage());
-            return false;
+            return Keys.hmacShaKeyFor(secret.getBytes());
+        } catch (WeakKeyException e) {
+            // Comportement identique à avant : un secret trop court rend tous les tokens invalides
+            log.warn("JWT secret rejected: {}", e.getMessage());
+            return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package com.iwa.notificationservice.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache borné des tokens déjà vérifiés.
+ * La clé est le SHA-256 du token (le token brut n'est jamais conservé en mémoire) et la valeur
+ * l'ID utilisateur résolu. Une entrée n'est jamais servie au-delà de l'expiration du token.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Map<TokenDigest, CachedToken> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    @Autowired
+    public VerifiedTokenCache(@Value("${security.jwt.cache.max-size:10000}") int maxSize,
+                              @Value("${security.jwt.cache.ttl:5m}") Duration ttl) {
+        this(maxSize, ttl, Clock.systemUTC());
+    }
+
+    VerifiedTokenCache(int maxSize, Duration ttl, Clock clock) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Retourne l'ID utilisateur associé au token s'il a déjà été vérifié et n'est pas expiré.
+     *
+     * @param token Le token JWT brut.
+     * @return L'ID utilisateur, ou null en cas d'absence dans le cache.
+     */
+    public Long get(String token) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        TokenDigest digest = TokenDigest.of(token);
+        CachedToken cached = entries.get(digest);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        if (cached.expiresAtMillis() <= clock.millis()) {
+            entries.remove(digest, cached);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.userId();
+    }
+
+    /**
+     * Enregistre un token vérifié. L'entrée expire au plus tôt entre le TTL du cache et l'exp du token.
+     *
+     * @param token      Le token JWT brut.
+     * @param userId     L'ID utilisateur extrait des claims.
+     * @param expiration La date d'expiration du token (peut être null).
+     */
+    public void put(String token, Long userId, Date expiration) {
+        if (maxSize <= 0) {
+            return;
+        }
+        long now = clock.millis();
+        long expiresAt = now + ttlMillis;
+        if (expiration != null) {
+            expiresAt = Math.min(expiresAt, expiration.getTime());
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        entries.put(TokenDigest.of(token), new CachedToken(userId, expiresAt));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    // Purge les entrées expirées puis, si le cache est toujours plein, libère ~10 % de la capacité
+    // pour amortir le coût du parcours sur plusieurs insertions
+    private void evict(long now) {
+        int target = maxSize - Math.max(1, maxSize / 10);
+        Iterator<CachedToken> expired = entries.values().iterator();
+        while (expired.hasNext()) {
+            if (expired.next().expiresAtMillis() <= now) {
+                expired.remove();
+                evictions.increment();
+            }
+        }
+        Iterator<TokenDigest> overflow = entries.keySet().iterator();
+        while (entries.size() > target && overflow.hasNext()) {
+            overflow.next();
+            overflow.remove();
+            evictions.increment();
+        }
+    }
+
+    private record CachedToken(Long userId, long expiresAtMillis) {
+    }
+
+    private record TokenDigest(byte[] value) {
+
+        static TokenDigest of(String token) {
+            try {
+                MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+                return new TokenDigest(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TokenDigest digest && Arrays.equals(value, digest.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(value);
+        }
+    }
+}
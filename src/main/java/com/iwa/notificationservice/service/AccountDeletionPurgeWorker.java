@@ -0,0 +1,72 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.model.AccountDeletionRequest.RequestStatus;
+import com.iwa.notificationservice.repository.AccountDeletionRequestRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Purge en tâche de fond les notifications des comptes dont la suppression a été approuvée.
+ * Chaque demande est traitée par un job du JobRegistry, lot par lot (une transaction courte par lot),
+ * avec une pause entre deux lots pour ne pas monopoliser la base. Les demandes interrompues par un arrêt
+ * sont reprises au démarrage suivant grâce au point de reprise enregistré sur la demande.
+ */
+@Component
+public class AccountDeletionPurgeWorker {
+
+    static final String JOB_TYPE = "account-deletion-purge";
+
+    @Autowired
+    private AccountDeletionRequestRepository repository;
+
+    @Autowired
+    private AccountDeletionRequestService accountDeletionRequestService;
+
+    @Autowired
+    private JobRegistry jobRegistry;
+
+    @Value("${notification.purge.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${notification.purge.pause-between-chunks:200ms}")
+    private Duration pauseBetweenChunks = Duration.ofMillis(200);
+
+    // Demandes dont un job est déjà en file ou en cours sur cette instance
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Scheduled(fixedDelayString = "${notification.purge.poll-interval-ms:10000}")
+    public void schedulePendingPurges() {
+        for (Long requestId : repository.findIdsToPurge(RequestStatus.APPROVED, PageRequest.ofSize(100))) {
+            if (inFlight.add(requestId)) {
+                jobRegistry.submit(JOB_TYPE, progress -> {
+                    try {
+                        purge(requestId, progress);
+                    } finally {
+                        inFlight.remove(requestId);
+                    }
+                });
+            }
+        }
+    }
+
+    void purge(Long requestId, JobRegistry.JobProgress progress) {
+        int deleted;
+        while ((deleted = accountDeletionRequestService.purgeNextChunk(requestId, chunkSize)) > 0) {
+            progress.advance(deleted);
+            try {
+                Thread.sleep(pauseBetweenChunks.toMillis());
+            } catch (InterruptedException e) {
+                // Arrêt de l'application : la purge reprendra au prochain démarrage
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -1,35 +1,277 @@
 package com.iwa.notificationservice.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iwa.notificationservice.dto.DeletionApprovedEvent;
 import com.iwa.notificationservice.model.AccountDeletionRequest;
 import com.iwa.notificationservice.model.AccountDeletionRequest.RequestStatus;
+import com.iwa.notificationservice.model.OutboxEvent;
 import com.iwa.notificationservice.repository.AccountDeletionRequestRepository;
+import com.iwa.notificationservice.repository.NotificationRepository;
+import com.iwa.notificationservice.repository.OutboxEventRepository;
+import io.micrometer.core.annotation.Timed;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class AccountDeletionRequestService {
 
+    private static final Logger log = LoggerFactory.getLogger(AccountDeletionRequestService.class);
+
+    // Supposons que nous ayons récupéré l'email de l'utilisateur
+    private static final String DEFAULT_USER_EMAIL = "user@example.com";
+
     @Autowired
     private AccountDeletionRequestRepository repository;
 
-    @KafkaListener(topics = "user-deletion-requests", groupId = "notification-service-group")
-    public void listenUserDeletionRequests(String message) {
-        Long userId = Long.parseLong(message);
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdempotencyCache<Long> deletionRequestIdempotencyCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PendingDeletionIndex pendingDeletionIndex;
+
+    @Autowired
+    private PendingDeletionBroadcaster pendingDeletionBroadcaster;
+
+    @Value("${notification.kafka.deletion-approved.topic:user-deletion-approved}")
+    private String deletionApprovedTopic = "user-deletion-approved";
+
+    /**
+     * Mode batch (notification.kafka.deletion-requests.batch-mode=true) : tous les enregistrements d'un poll
+     * sont dédupliqués par userId puis insérés en batchs JDBC (hibernate.jdbc.batch_size), dans une seule transaction.
+     * Le conteneur ne commite les offsets qu'après le retour de cette méthode, donc après le commit en base.
+     * Chaque demande porte la position Kafka de son enregistrement comme clé d'idempotence : un poll redistribué
+     * (rebalance, reprise après erreur) ne recrée pas les demandes déjà enregistrées.
+     * Un utilisateur ayant déjà une demande en attente n'en reçoit pas de nouvelle. Si une autre instance en crée une
+     * entre la vérification et l'insertion (index unique partiel uk_deletion_request_pending_user), le lot est
+     * repris avec une transaction par utilisateur et ce conflit est traité comme une demande déjà en attente.
+     *
+     * @param records Les enregistrements d'un poll, un ID utilisateur par enregistrement.
+     */
+    @KafkaListener(id = "user-deletion-requests-batch", topics = "user-deletion-requests",
+            groupId = "notification-service-group", containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${notification.kafka.deletion-requests.batch-mode:true}")
+    @Timed(value = "notification.kafka.batch", extraTags = {"listener", "user-deletion-requests"}, histogram = true)
+    public void listenUserDeletionRequestsBatch(List<ConsumerRecord<String, String>> records) {
+        // Un seul enregistrement retenu par utilisateur : le premier du poll, dont la position sert de clé
+        Map<Long, String> keysByUserId = new LinkedHashMap<>(records.size() * 2);
+        for (ConsumerRecord<String, String> record : records) {
+            Long userId = parseUserId(record.value());
+            if (userId == null) {
+                log.warn("Ignoring malformed user-deletion-requests record: {}", record.value());
+                continue;
+            }
+            String key = idempotencyKey(record);
+            if (!pendingDeletionIndex.contains(userId) && deletionRequestIdempotencyCache.get(key) == null) {
+                keysByUserId.putIfAbsent(userId, key);
+            }
+        }
+        if (keysByUserId.isEmpty()) {
+            return;
+        }
+
+        // Demandes en attente créées par une autre instance, ou entrées de l'index expirées
+        List<Long> alreadyPending =
+                repository.findUserIdsByStatusAndUserIdIn(RequestStatus.PENDING, keysByUserId.keySet());
+        pendingDeletionIndex.confirmAll(alreadyPending);
+        alreadyPending.forEach(keysByUserId::remove);
+        if (keysByUserId.isEmpty()) {
+            return;
+        }
+
+        Set<String> existingKeys = new HashSet<>(repository.findExistingIdempotencyKeys(keysByUserId.values()));
+        // Les IDs viennent de la séquence pooled : Hibernate peut regrouper les INSERT
+        LocalDateTime requestTime = LocalDateTime.now();
+        List<AccountDeletionRequest> requests = new ArrayList<>(keysByUserId.size());
+        for (Map.Entry<Long, String> entry : keysByUserId.entrySet()) {
+            // add() réserve l'utilisateur : un autre thread ne peut plus insérer de demande pour lui
+            if (!existingKeys.contains(entry.getValue()) && pendingDeletionIndex.add(entry.getKey())) {
+                requests.add(newPendingRequest(entry.getKey(), entry.getValue(), requestTime));
+            }
+        }
+        if (requests.isEmpty()) {
+            return;
+        }
+        // Transaction explicite : le conflit, levé au commit, est rattrapé ici plutôt que dans le proxy
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> {
+                repository.saveAll(requests);
+                trackCompletion(requests);
+            });
+        } catch (DataIntegrityViolationException e) {
+            requests.forEach(request -> pendingDeletionIndex.remove(request.getUserId()));
+            for (AccountDeletionRequest request : requests) {
+                savePendingRequestAlone(transaction, request);
+            }
+        } catch (RuntimeException e) {
+            requests.forEach(request -> pendingDeletionIndex.remove(request.getUserId()));
+            throw e;
+        }
+    }
+
+    // Reprise d'une demande du lot annulé dans sa propre transaction (nouvelle entité : l'ID alloué est abandonné)
+    private void savePendingRequestAlone(TransactionTemplate transaction, AccountDeletionRequest failed) {
+        Long userId = failed.getUserId();
+        if (!pendingDeletionIndex.add(userId)) {
+            return;
+        }
+        AccountDeletionRequest request = newPendingRequest(userId, failed.getIdempotencyKey(), failed.getRequestTime());
+        try {
+            transaction.executeWithoutResult(status -> {
+                repository.save(request);
+                trackCompletion(List.of(request));
+            });
+        } catch (DataIntegrityViolationException e) {
+            pendingDeletionIndex.remove(userId);
+            absorbConflict(userId, request.getIdempotencyKey(), e);
+        } catch (RuntimeException e) {
+            pendingDeletionIndex.remove(userId);
+            throw e;
+        }
+    }
+
+    // Conflit attendu : demande en attente créée par une autre instance, ou enregistrement déjà stocké.
+    // Toute autre violation de contrainte est propagée
+    private void absorbConflict(Long userId, String idempotencyKey, DataIntegrityViolationException e) {
+        List<Long> alreadyPending = repository.findUserIdsByStatusAndUserIdIn(RequestStatus.PENDING, List.of(userId));
+        if (alreadyPending.isEmpty() && repository.findExistingIdempotencyKeys(List.of(idempotencyKey)).isEmpty()) {
+            throw e;
+        }
+        pendingDeletionIndex.confirmAll(alreadyPending);
+        log.debug("Deletion request of user {} already recorded", userId);
+    }
+
+    // Mode unitaire (batch-mode=false) : un enregistrement et une transaction par message
+    @KafkaListener(id = "user-deletion-requests", topics = "user-deletion-requests",
+            groupId = "notification-service-group",
+            autoStartup = "#{!${notification.kafka.deletion-requests.batch-mode:true}}")
+    @Timed(value = "notification.kafka.record", extraTags = {"listener", "user-deletion-requests"}, histogram = true)
+    public void listenUserDeletionRequests(ConsumerRecord<String, String> record) {
+        Long userId = Long.parseLong(record.value());
+        String key = idempotencyKey(record);
+        if (pendingDeletionIndex.contains(userId) || deletionRequestIdempotencyCache.get(key) != null) {
+            return;
+        }
+        if (!repository.findUserIdsByStatusAndUserIdIn(RequestStatus.PENDING, List.of(userId)).isEmpty()) {
+            pendingDeletionIndex.confirmAll(List.of(userId));
+            return;
+        }
+        if (!repository.findExistingIdempotencyKeys(List.of(key)).isEmpty() || !pendingDeletionIndex.add(userId)) {
+            return;
+        }
 
         // Vous pouvez appeler le user-service pour récupérer l'email si nécessaire
 
+        AccountDeletionRequest saved;
+        try {
+            saved = repository.save(newPendingRequest(userId, key, LocalDateTime.now()));
+        } catch (DataIntegrityViolationException e) {
+            pendingDeletionIndex.remove(userId);
+            absorbConflict(userId, key, e);
+            return;
+        } catch (RuntimeException e) {
+            pendingDeletionIndex.remove(userId);
+            throw e;
+        }
+        pendingDeletionIndex.confirmAll(List.of(userId));
+        deletionRequestIdempotencyCache.put(key, saved.getId());
+    }
+
+    private AccountDeletionRequest newPendingRequest(Long userId, String idempotencyKey, LocalDateTime requestTime) {
         AccountDeletionRequest request = new AccountDeletionRequest();
         request.setUserId(userId);
-        // Supposons que nous ayons récupéré l'email de l'utilisateur
-        request.setUserEmail("user@example.com");
-        request.setRequestTime(LocalDateTime.now());
+        request.setUserEmail(DEFAULT_USER_EMAIL);
+        request.setRequestTime(requestTime);
         request.setStatus(RequestStatus.PENDING);
+        request.setIdempotencyKey(idempotencyKey);
+        return request;
+    }
 
-        repository.save(request);
+    static String idempotencyKey(ConsumerRecord<?, ?> record) {
+        return record.topic() + ":" + record.partition() + ":" + record.offset();
+    }
+
+    // Les clés ne sont mémorisées qu'une fois les demandes validées en base ; en cas de rollback,
+    // les utilisateurs réservés dans l'index sont libérés
+    private void trackCompletion(List<AccountDeletionRequest> requests) {
+        Runnable remember = () -> {
+            pendingDeletionIndex.confirmAll(requests.stream().map(AccountDeletionRequest::getUserId).toList());
+            requests.forEach(
+                    request -> deletionRequestIdempotencyCache.put(request.getIdempotencyKey(), request.getId()));
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        requests.forEach(request -> pendingDeletionIndex.remove(request.getUserId()));
+                    }
+                }
+            });
+        } else {
+            remember.run();
+        }
+    }
+
+    // L'utilisateur n'a plus de demande en attente une fois la décision validée en base, ici comme sur les
+    // autres instances
+    private void releaseAfterCommit(Long userId) {
+        Runnable release = () -> {
+            pendingDeletionIndex.remove(userId);
+            pendingDeletionBroadcaster.broadcast(userId);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release.run();
+                }
+            });
+        } else {
+            release.run();
+        }
     }
 
     // Méthodes pour récupérer et gérer les demandes
@@ -37,26 +279,115 @@ public class AccountDeletionRequestService {
         return repository.findByStatus(RequestStatus.PENDING);
     }
 
+    /**
+     * Approuver une demande en attente. L'événement destiné au user-service est écrit dans l'outbox dans la même
+     * transaction ; la purge des notifications est ensuite faite par AccountDeletionPurgeWorker.
+     * Une demande déjà décidée est refusée (409) : ni second événement, ni purge d'une demande rejetée.
+     *
+     * @param requestId L'ID de la demande.
+     * @return La demande approuvée.
+     */
+    @Transactional
     public AccountDeletionRequest approveRequest(Long requestId) {
-        AccountDeletionRequest request = repository.findById(requestId)
-                .orElseThrow(() -> new RuntimeException("Request not found"));
+        AccountDeletionRequest request = findPendingForUpdate(requestId);
         request.setStatus(RequestStatus.APPROVED);
         repository.save(request);
+        releaseAfterCommit(request.getUserId());
 
-        // Ici, vous pouvez publier un événement Kafka pour informer le user-service
-        // que la suppression a été approuvée
+        DeletionApprovedEvent event = new DeletionApprovedEvent(request.getId(), request.getUserId(), LocalDateTime.now());
+        outboxEventRepository.save(new OutboxEvent(deletionApprovedTopic, String.valueOf(request.getUserId()), toJson(event)));
 
         return request;
     }
 
+    /**
+     * Supprimer le prochain lot de notifications d'une demande approuvée et enregistrer le point de reprise,
+     * dans une seule transaction courte. Après un arrêt, la purge reprend au lot suivant.
+     *
+     * @param requestId L'ID de la demande.
+     * @param chunkSize Le nombre maximum de notifications supprimées.
+     * @return Le nombre de notifications supprimées, 0 lorsque la purge est terminée.
+     */
+    @Transactional
+    public int purgeNextChunk(Long requestId, int chunkSize) {
+        AccountDeletionRequest request = repository.findByIdForUpdate(requestId).orElse(null);
+        if (request == null || request.getStatus() != RequestStatus.APPROVED || request.getPurgeCompletedAt() != null) {
+            return 0;
+        }
+        if (request.getPurgeMaxId() == null) {
+            // Borne fixée une fois pour toutes : la purge se termine même si des notifications arrivent encore
+            Long maxId = notificationRepository.findMaxIdByUserId(request.getUserId());
+            request.setPurgeMaxId(maxId != null ? maxId : 0L);
+        }
+        int deleted = notificationService.deleteNotificationsChunk(request.getUserId(), request.getPurgeMaxId(), chunkSize);
+        request.setPurgedCount(request.getPurgedCount() + deleted);
+        if (deleted == 0) {
+            request.setPurgeCompletedAt(LocalDateTime.now());
+            log.info("Purged {} notifications of user {} (request {})",
+                    request.getPurgedCount(), request.getUserId(), requestId);
+        }
+        repository.save(request);
+        return deleted;
+    }
+
+    /**
+     * Rejeter une demande en attente. Une demande déjà décidée est refusée (409) : une demande approuvée
+     * a déjà été annoncée au user-service.
+     *
+     * @param requestId L'ID de la demande.
+     * @return La demande rejetée.
+     */
+    @Transactional
     public AccountDeletionRequest rejectRequest(Long requestId) {
-        AccountDeletionRequest request = repository.findById(requestId)
-                .orElseThrow(() -> new RuntimeException("Request not found"));
+        AccountDeletionRequest request = findPendingForUpdate(requestId);
         request.setStatus(RequestStatus.REJECTED);
         repository.save(request);
+        releaseAfterCommit(request.getUserId());
 
         // Optionnel : Notifier l'utilisateur que sa demande a été rejetée
 
         return request;
     }
-}
\ No newline at end of file
+
+    // Verrou sur la demande jusqu'au commit : deux décisions concurrentes ne voient pas toutes deux PENDING
+    private AccountDeletionRequest findPendingForUpdate(Long requestId) {
+        AccountDeletionRequest request = repository.findByIdForUpdate(requestId)
+                .orElseThrow(() -> new RuntimeException("Request not found"));
+        if (request.getStatus() != RequestStatus.PENDING) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Request " + requestId + " is already " + request.getStatus());
+        }
+        return request;
+    }
+
+    private String toJson(Object event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event, e);
+        }
+    }
+
+    // Analyse un ID utilisateur sans allocation intermédiaire (pas de trim ni de substring)
+    static Long parseUserId(String message) {
+        if (message == null) {
+            return null;
+        }
+        int start = 0;
+        int end = message.length();
+        while (start < end && Character.isWhitespace(message.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(message.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        try {
+            return Long.parseLong(message, start, end, 10);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
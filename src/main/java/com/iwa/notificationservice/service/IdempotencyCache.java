@@ -0,0 +1,86 @@
+package com.iwa.notificationservice.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Clés d'idempotence récemment traitées, avec le résultat associé, gardées en mémoire pour une courte durée.
+ * Une relance du producteur dans cette fenêtre est résolue sans accès à la base ; au-delà, la contrainte
+ * unique en base reste la référence.
+ *
+ * @param <V> Le résultat mémorisé pour une clé (l'ID de l'entité créée, relue au besoin).
+ */
+public class IdempotencyCache<V> {
+
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    public IdempotencyCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, Clock.systemUTC());
+    }
+
+    IdempotencyCache(int maxSize, Duration ttl, Clock clock) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * @param key La clé d'idempotence.
+     * @return Le résultat mémorisé, ou null si la clé n'a pas été vue récemment.
+     */
+    public V get(String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis() <= clock.millis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    public void put(String key, V value) {
+        if (maxSize <= 0) {
+            return;
+        }
+        long now = clock.millis();
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        entries.put(key, new Entry<>(value, now + ttlMillis));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    // Purge les entrées expirées puis, si la map est toujours pleine, libère ~10 % de la capacité
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+        int target = maxSize - Math.max(1, maxSize / 10);
+        Iterator<String> overflow = entries.keySet().iterator();
+        while (entries.size() > target && overflow.hasNext()) {
+            overflow.next();
+            overflow.remove();
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAtMillis) {
+    }
+}
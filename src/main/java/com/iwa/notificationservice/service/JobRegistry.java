@@ -0,0 +1,149 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.dto.JobStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exécution et suivi des traitements longs (purges, diffusions) lancés par l'API.
+ * Le nombre de traitements simultanés est borné pour préserver le pool de connexions ; les suivants
+ * attendent en file. Les traitements terminés restent consultables pendant la durée de rétention.
+ */
+@Component
+public class JobRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(JobRegistry.class);
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final Executor executor;
+    private final Duration retention;
+    private final Clock clock;
+
+    @Autowired
+    public JobRegistry(@Value("${notification.jobs.max-concurrent:2}") int maxConcurrent,
+                       @Value("${notification.jobs.retention:1h}") Duration retention) {
+        this(Executors.newFixedThreadPool(maxConcurrent, Thread.ofPlatform().name("job-", 0).daemon().factory()),
+                retention, Clock.systemUTC());
+    }
+
+    JobRegistry(Executor executor, Duration retention, Clock clock) {
+        this.executor = executor;
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    /**
+     * Soumet un traitement. Il reçoit son suivi de progression et le met à jour au fil de l'eau.
+     *
+     * @param type Le type de traitement (ex. "notification-purge").
+     * @param work Le traitement.
+     * @return L'état initial du traitement.
+     */
+    public JobStatus submit(String type, JobWork work) {
+        Job job = new Job(UUID.randomUUID().toString(), type, clock.instant());
+        jobs.put(job.id, job);
+        executor.execute(() -> {
+            try {
+                work.run(job);
+                job.finish(null);
+            } catch (RuntimeException e) {
+                log.warn("Job {} ({}) failed", job.id, type, e);
+                job.finish(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            }
+        });
+        return job.status();
+    }
+
+    public Optional<JobStatus> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::status);
+    }
+
+    // Oublie les traitements terminés depuis plus longtemps que la rétention
+    @Scheduled(fixedDelayString = "${notification.jobs.cleanup-interval-ms:60000}")
+    public void removeExpiredJobs() {
+        Instant threshold = clock.instant().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(threshold));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Un traitement soumis au registre.
+     */
+    @FunctionalInterface
+    public interface JobWork {
+        void run(JobProgress progress);
+    }
+
+    /**
+     * Suivi de progression mis à jour par le traitement.
+     */
+    public interface JobProgress {
+
+        void setTotal(long total);
+
+        void advance(long processed);
+    }
+
+    private final class Job implements JobProgress {
+
+        private final String id;
+        private final String type;
+        private final Instant startedAt;
+        private final AtomicLong processed = new AtomicLong();
+
+        private volatile Long total;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private Job(String id, String type, Instant startedAt) {
+            this.id = id;
+            this.type = type;
+            this.startedAt = startedAt;
+        }
+
+        @Override
+        public void setTotal(long total) {
+            this.total = total;
+        }
+
+        @Override
+        public void advance(long count) {
+            processed.addAndGet(count);
+        }
+
+        private void finish(String error) {
+            this.error = error;
+            this.finishedAt = clock.instant();
+        }
+
+        private JobStatus status() {
+            JobStatus.State state = finishedAt == null ? JobStatus.State.RUNNING
+                    : error == null ? JobStatus.State.COMPLETED : JobStatus.State.FAILED;
+            return new JobStatus(id, type, state, processed.get(), total, startedAt, finishedAt, error);
+        }
+    }
+}
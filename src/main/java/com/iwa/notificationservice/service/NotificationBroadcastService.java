@@ -0,0 +1,56 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.dto.BroadcastRequest;
+import com.iwa.notificationservice.dto.JobStatus;
+import com.iwa.notificationservice.model.Notification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+/**
+ * Diffusion d'une notification à un grand nombre d'utilisateurs, exécutée en tâche de fond.
+ * Les destinataires sont parcourus en flux et les notifications insérées par tranches, chacune dans sa
+ * propre transaction (INSERT batchés) : la mémoire utilisée ne dépend que de la taille d'une tranche.
+ */
+@Service
+public class NotificationBroadcastService {
+
+    static final String JOB_TYPE = "notification-broadcast";
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private JobRegistry jobRegistry;
+
+    @Value("${notification.broadcast.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    /**
+     * Lancer une diffusion.
+     *
+     * @param request Le modèle de notification et les destinataires.
+     * @return L'état initial du traitement, dont l'ID permet de suivre la progression.
+     */
+    public JobStatus startBroadcast(BroadcastRequest request) {
+        return jobRegistry.submit(JOB_TYPE, progress -> broadcast(request, progress));
+    }
+
+    void broadcast(BroadcastRequest request, JobRegistry.JobProgress progress) {
+        progress.setTotal(request.recipients().count());
+        PrimitiveIterator.OfLong recipients = request.recipients().iterator();
+        List<Notification> chunk = new ArrayList<>(chunkSize);
+        while (recipients.hasNext()) {
+            chunk.add(new Notification(recipients.nextLong(), request.title(), request.message()));
+            if (chunk.size() == chunkSize || !recipients.hasNext()) {
+                notificationService.createNotifications(chunk);
+                progress.advance(chunk.size());
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+    }
+}
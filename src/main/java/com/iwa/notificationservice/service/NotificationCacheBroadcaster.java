@@ -0,0 +1,86 @@
+package com.iwa.notificationservice.service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Propage les invalidations du cache des listes (et des compteurs de non lues) aux autres instances via Kafka.
+ * Chaque instance consomme le topic avec son propre group id : toutes reçoivent tous les événements.
+ * La clé de l'enregistrement identifie l'instance émettrice, qui ignore ses propres événements.
+ */
+@Service
+public class NotificationCacheBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationCacheBroadcaster.class);
+
+    public static final String INSTANCE_ID = UUID.randomUUID().toString();
+
+    // Utilisateurs par enregistrement Kafka (IDs séparés par des virgules)
+    private static final int RECORD_SIZE = 1000;
+
+    @Autowired
+    private NotificationListCache notificationListCache;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    @Autowired
+    @Qualifier("broadcastKafkaTemplate")
+    private KafkaTemplate<Object, Object> kafkaTemplate;
+
+    @Value("${notification.kafka.cache-invalidation.topic:notification-cache-invalidation}")
+    private String topic;
+
+    /**
+     * Publie l'invalidation des listes des utilisateurs donnés, sans attendre l'acquittement de Kafka.
+     * Les IDs sont regroupés par enregistrement : une création en masse n'émet que quelques enregistrements.
+     *
+     * @param userIds Les IDs des utilisateurs dont les listes ont changé.
+     */
+    public void broadcast(Collection<Long> userIds) {
+        List<Long> ids = List.copyOf(userIds);
+        for (int from = 0; from < ids.size(); from += RECORD_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + RECORD_SIZE, ids.size()));
+            String payload = chunk.stream().map(String::valueOf).collect(Collectors.joining(","));
+            kafkaTemplate.send(topic, INSTANCE_ID, payload)
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            // Les autres instances se recaleront à l'expiration du TTL
+                            log.warn("Failed to broadcast cache invalidation for {} users", chunk.size(), error);
+                        }
+                    });
+        }
+    }
+
+    @KafkaListener(id = "notification-cache-invalidation",
+            topics = "${notification.kafka.cache-invalidation.topic:notification-cache-invalidation}",
+            groupId = "notification-cache-#{T(com.iwa.notificationservice.service.NotificationCacheBroadcaster).INSTANCE_ID}",
+            properties = "auto.offset.reset=latest")
+    public void listenCacheInvalidation(ConsumerRecord<String, String> record) {
+        if (INSTANCE_ID.equals(record.key())) {
+            return;
+        }
+        try {
+            for (String value : record.value().split(",")) {
+                Long userId = Long.parseLong(value);
+                notificationListCache.invalidate(userId);
+                // Le compteur de non lues a pu changer avec la liste : il sera recompté au prochain accès
+                unreadCounterStore.evict(userId);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed cache invalidation event: {}", record.value());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.iwa.notificationservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iwa.notificationservice.dto.NotificationEvent;
+import com.iwa.notificationservice.model.Notification;
+import io.micrometer.core.annotation.Timed;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ingestion des notifications publiées par les autres services sur le topic notification-events,
+ * en alternative à POST /notifications.
+ */
+@Service
+public class NotificationEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationEventListener.class);
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Chaque poll est inséré en une seule transaction par NotificationService.createNotifications.
+     * Un enregistrement illisible ou refusé par la base est signalé par sa position
+     * (BatchListenerFailedException) : les enregistrements qui le précèdent sont écrits et leurs offsets
+     * commités, lui seul est envoyé au DLT, et le reste du poll est relivré (voir KafkaConsumerConfig).
+     *
+     * @param records Les enregistrements d'un poll.
+     */
+    @KafkaListener(id = "notification-events", topics = "${notification.kafka.notification-events.topic:notification-events}",
+            groupId = "notification-service-group", containerFactory = "notificationEventsContainerFactory")
+    @Timed(value = "notification.kafka.batch", extraTags = {"listener", "notification-events"}, histogram = true)
+    public void listenNotificationEvents(List<ConsumerRecord<String, String>> records) {
+        List<NotificationEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                events.add(parse(record.value()));
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                log.warn("Malformed notification event {}-{}@{}: {}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage());
+                // events correspond aux enregistrements 0..index-1, tous valides
+                save(events);
+                throw new BatchListenerFailedException("Malformed notification event", e, events.size());
+            }
+        }
+        save(events);
+    }
+
+    private void save(List<NotificationEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            notificationService.createNotifications(toNotifications(events));
+        } catch (DataIntegrityViolationException e) {
+            // Une ligne refusée par la base : insertion une à une pour isoler l'enregistrement fautif.
+            // Les entités sont recréées, celles du batch annulé ayant déjà reçu un ID.
+            for (int index = 0; index < events.size(); index++) {
+                try {
+                    notificationService.createNotifications(List.of(events.get(index).toNotification()));
+                } catch (DataIntegrityViolationException rowError) {
+                    throw new BatchListenerFailedException("Notification event rejected by the database", rowError, index);
+                }
+            }
+        }
+    }
+
+    private static List<Notification> toNotifications(List<NotificationEvent> events) {
+        List<Notification> notifications = new ArrayList<>(events.size());
+        for (NotificationEvent event : events) {
+            notifications.add(event.toNotification());
+        }
+        return notifications;
+    }
+
+    private NotificationEvent parse(String payload) throws JsonProcessingException {
+        if (payload == null) {
+            throw new IllegalArgumentException("Empty payload");
+        }
+        NotificationEvent event = objectMapper.readValue(payload, NotificationEvent.class);
+        if (event == null || event.userId() == null) {
+            throw new IllegalArgumentException("Missing userId");
+        }
+        return event;
+    }
+}
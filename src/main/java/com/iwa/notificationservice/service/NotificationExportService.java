@@ -0,0 +1,87 @@
+package com.iwa.notificationservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.iwa.notificationservice.dto.NotificationView;
+import com.iwa.notificationservice.model.Notification;
+import com.iwa.notificationservice.repository.NotificationRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Export des notifications au format NDJSON (un objet JSON par ligne), écrit au fil de la lecture.
+ * La mémoire utilisée ne dépend pas du volume exporté : les lignes sont lues par lots de
+ * {@link NotificationRepository#EXPORT_FETCH_SIZE} et le contexte de persistance est vidé à chaque lot.
+ */
+@Service
+public class NotificationExportService {
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Exporter toutes les notifications d'un utilisateur, des plus anciennes aux plus récentes.
+     *
+     * @param userId L'ID de l'utilisateur.
+     * @param out    Le flux de sortie de la réponse.
+     * @return Le nombre de notifications exportées.
+     */
+    @Transactional(readOnly = true)
+    public long exportByUserId(Long userId, OutputStream out) throws IOException {
+        try (Stream<Notification> notifications = notificationRepository.streamByUserId(userId)) {
+            return writeNdjson(notifications, out);
+        }
+    }
+
+    /**
+     * Exporter toutes les notifications créées dans l'intervalle [from, to).
+     *
+     * @param from Début de l'intervalle (inclus).
+     * @param to   Fin de l'intervalle (exclue).
+     * @param out  Le flux de sortie de la réponse.
+     * @return Le nombre de notifications exportées.
+     */
+    @Transactional(readOnly = true)
+    public long exportByCreatedAt(LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        try (Stream<Notification> notifications = notificationRepository.streamByCreatedAtBetween(from, to)) {
+            return writeNdjson(notifications, out);
+        }
+    }
+
+    private long writeNdjson(Stream<Notification> notifications, OutputStream out) throws IOException {
+        // Pas de flush après chaque objet : le flux est vidé une fois par lot
+        ObjectWriter writer = objectMapper.writerFor(NotificationView.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            Iterator<Notification> iterator = notifications.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, NotificationView.of(iterator.next()));
+                generator.writeRaw('\n');
+                if (++count % NotificationRepository.EXPORT_FETCH_SIZE == 0) {
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+}
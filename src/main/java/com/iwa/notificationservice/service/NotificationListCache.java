@@ -0,0 +1,170 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.dto.NotificationView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache en lecture des listes de notifications par utilisateur (toutes, ou non lues uniquement).
+ * Borné en nombre de listes et en poids (nombre total de notifications retenues) ; le TTL limite la durée
+ * d'une incohérence si un événement d'invalidation d'une autre instance était perdu.
+ * Une liste chargée pendant une invalidation du même utilisateur n'est pas mise en cache.
+ */
+@Component
+public class NotificationListCache {
+
+    // Générations par tranche d'utilisateurs : incrémentées à chaque invalidation
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Map<ListKey, CachedList> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong totalWeight = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    @Autowired
+    public NotificationListCache(@Value("${notification.list-cache.max-entries:10000}") int maxEntries,
+                                 @Value("${notification.list-cache.max-weight:1000000}") long maxWeight,
+                                 @Value("${notification.list-cache.ttl:5m}") Duration ttl) {
+        this(maxEntries, maxWeight, ttl, Clock.systemUTC());
+    }
+
+    NotificationListCache(int maxEntries, long maxWeight, Duration ttl, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Retourne la liste en cache, ou la charge via le loader et la met en cache.
+     *
+     * @param userId     L'ID de l'utilisateur.
+     * @param unreadOnly true pour la liste des non lues uniquement.
+     * @param loader     Requête exécutée en cas d'absence, hors de tout verrou.
+     * @return La liste des notifications (non modifiable).
+     */
+    public List<NotificationView> get(Long userId, boolean unreadOnly, Supplier<List<NotificationView>> loader) {
+        if (maxEntries <= 0) {
+            return loader.get();
+        }
+        ListKey key = new ListKey(userId, unreadOnly);
+        long now = clock.millis();
+        CachedList cached = entries.get(key);
+        if (cached != null && cached.expiresAtMillis() > now) {
+            hits.increment();
+            return cached.notifications();
+        }
+        misses.increment();
+
+        long generation = generations.get(stripe(userId));
+        List<NotificationView> loaded = List.copyOf(loader.get());
+        // Une invalidation survenue pendant le chargement rend la liste potentiellement périmée
+        if (loaded.size() <= maxWeight && generations.get(stripe(userId)) == generation) {
+            put(key, new CachedList(loaded, now + ttlMillis));
+        }
+        return loaded;
+    }
+
+    /**
+     * Invalide les deux listes d'un utilisateur, ainsi que tout chargement en cours pour celui-ci.
+     *
+     * @param userId L'ID de l'utilisateur.
+     */
+    public void invalidate(Long userId) {
+        generations.incrementAndGet(stripe(userId));
+        remove(new ListKey(userId, false));
+        remove(new ListKey(userId, true));
+    }
+
+    public void clear() {
+        for (ListKey key : entries.keySet()) {
+            remove(key);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getWeight() {
+        return totalWeight.get();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private void put(ListKey key, CachedList list) {
+        if (entries.size() >= maxEntries || totalWeight.get() + list.weight() > maxWeight) {
+            evict(list.weight());
+        }
+        entries.compute(key, (k, previous) -> {
+            if (previous != null) {
+                totalWeight.addAndGet(-previous.weight());
+            }
+            totalWeight.addAndGet(list.weight());
+            return list;
+        });
+    }
+
+    private void remove(ListKey key) {
+        entries.computeIfPresent(key, (k, previous) -> {
+            totalWeight.addAndGet(-previous.weight());
+            return null;
+        });
+    }
+
+    // Purge les listes expirées puis, si besoin, libère ~10 % de la capacité (en nombre et en poids)
+    private void evict(long incomingWeight) {
+        long now = clock.millis();
+        for (Map.Entry<ListKey, CachedList> entry : entries.entrySet()) {
+            if (entry.getValue().expiresAtMillis() <= now) {
+                remove(entry.getKey());
+            }
+        }
+        int targetEntries = maxEntries - Math.max(1, maxEntries / 10);
+        long targetWeight = maxWeight - Math.max(incomingWeight, maxWeight / 10);
+        Iterator<ListKey> overflow = entries.keySet().iterator();
+        while ((entries.size() > targetEntries || totalWeight.get() > targetWeight) && overflow.hasNext()) {
+            remove(overflow.next());
+        }
+    }
+
+    private static int stripe(Long userId) {
+        return Math.floorMod(userId.hashCode(), GENERATION_STRIPES);
+    }
+
+    private record ListKey(Long userId, boolean unreadOnly) {
+    }
+
+    private record CachedList(List<NotificationView> notifications, long expiresAtMillis) {
+
+        long weight() {
+            // Une liste vide coûte quand même une entrée
+            return Math.max(1, notifications.size());
+        }
+    }
+}
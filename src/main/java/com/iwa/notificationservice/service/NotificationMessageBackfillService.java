@@ -0,0 +1,160 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.model.Notification;
+import com.iwa.notificationservice.model.NotificationMessage;
+import com.iwa.notificationservice.repository.JobLockRepository;
+import com.iwa.notificationservice.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reprise des notifications créées avant la table notification_message (phase d'expansion de la migration V6),
+ * hors Flyway : message_id est renseigné par plages d'IDs, chacune dans ses propres transactions courtes, avec
+ * une pause entre deux lots. Les lignes écrites sans message_id par les instances de la version précédente
+ * pendant un déploiement progressif sont reprises aux passes suivantes.
+ * Une fois toutes les lignes reprises, la clé étrangère fk_notification_message (NOT VALID) est validée.
+ * Planifié sur toutes les instances, exécuté par celle qui prend le verrou partagé (table job_lock).
+ * À retirer avec la migration de contraction (message_id NOT NULL, suppression de title et message).
+ */
+@Service
+@ConditionalOnProperty(name = "notification.message-backfill.enabled", havingValue = "true", matchIfMissing = true)
+public class NotificationMessageBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationMessageBackfillService.class);
+
+    static final String JOB_TYPE = "notification-message-backfill";
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationMessageStore notificationMessageStore;
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${notification.message-backfill.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${notification.message-backfill.pause-between-batches:100ms}")
+    private Duration pauseBetweenBatches = Duration.ofMillis(100);
+
+    // Bail sur le verrou partagé : doit dépasser la passe la plus longue
+    @Value("${notification.message-backfill.lock-duration:6h}")
+    private Duration lockDuration = Duration.ofHours(6);
+
+    // Toutes les lignes ont été reprises et la clé étrangère validée : plus rien à faire sur cette instance
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    @Scheduled(fixedDelayString = "${notification.message-backfill.poll-interval-ms:300000}")
+    public void scheduleBackfill() {
+        if (completed.get()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (jobLockRepository.tryAcquire(JOB_TYPE, NotificationCacheBroadcaster.INSTANCE_ID, now, now.plus(lockDuration)) == 0) {
+            return;
+        }
+        try {
+            long updated = backfill();
+            if (updated > 0) {
+                log.info("Notification message backfill assigned contents to {} notifications", updated);
+            }
+            if (!notificationRepository.existsByContentIsNull()) {
+                validateForeignKey();
+                completed.set(true);
+                log.info("Notification message backfill completed");
+            }
+        } catch (InterruptedException e) {
+            // Arrêt de l'application : la passe suivante reprendra les lignes restantes
+            Thread.currentThread().interrupt();
+        } finally {
+            jobLockRepository.release(JOB_TYPE, NotificationCacheBroadcaster.INSTANCE_ID, LocalDateTime.now());
+        }
+    }
+
+    // Parcourt la clé primaire par plages de batchSize IDs, de la première ligne sans contenu à la dernière ligne
+    // existante au début de la passe
+    long backfill() throws InterruptedException {
+        Long minId = notificationRepository.findMinIdWithoutContent();
+        Long maxId = notificationRepository.findMaxId();
+        if (minId == null || maxId == null) {
+            return 0;
+        }
+        long updated = 0;
+        for (long fromId = minId; fromId <= maxId; fromId += batchSize) {
+            int count = backfillBetween(fromId, Math.min(fromId + batchSize - 1, maxId));
+            if (count > 0) {
+                updated += count;
+                pause();
+            }
+        }
+        return updated;
+    }
+
+    int backfillBetween(long fromId, long toId) {
+        List<Notification> notifications = notificationRepository.findWithoutContentBetween(fromId, toId);
+        if (notifications.isEmpty()) {
+            return 0;
+        }
+        // Contenus résolus (ou créés) dans leur propre transaction, avant celle de la mise à jour
+        notificationMessageStore.resolveAll(notifications);
+        Map<NotificationMessage, List<Long>> idsByContent = new IdentityHashMap<>();
+        for (Notification notification : notifications) {
+            idsByContent.computeIfAbsent(notification.getContent(), content -> new ArrayList<>()).add(notification.getId());
+        }
+        try {
+            return new TransactionTemplate(transactionManager).execute(status -> {
+                int count = 0;
+                for (Map.Entry<NotificationMessage, List<Long>> entry : idsByContent.entrySet()) {
+                    count += notificationRepository.setContentWhereMissing(entry.getKey(), entry.getValue());
+                }
+                return count;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Un contenu gardé en mémoire vient d'être supprimé (plus référencé) : plage reprise à la passe suivante
+            notificationMessageStore.forget(notifications);
+            return 0;
+        }
+    }
+
+    // VALIDATE CONSTRAINT ne prend qu'un verrou SHARE UPDATE EXCLUSIVE : lectures et écritures continuent
+    // pendant la vérification. Sans objet sur H2, où la contrainte est créée validée
+    private void validateForeignKey() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if ("PostgreSQL".equals(database)) {
+            jdbcTemplate.execute("ALTER TABLE notification VALIDATE CONSTRAINT fk_notification_message");
+        }
+    }
+
+    private void pause() throws InterruptedException {
+        if (!pauseBetweenBatches.isZero()) {
+            Thread.sleep(pauseBetweenBatches.toMillis());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.model.Notification;
+import com.iwa.notificationservice.model.NotificationMessage;
+import com.iwa.notificationservice.repository.NotificationMessageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Interning des contenus de notifications : chaque couple (titre, message) distinct n'est stocké qu'une fois
+ * dans notification_message. Les contenus récemment utilisés sont gardés en mémoire par empreinte, de sorte
+ * qu'un message répété (gabarits système) ne coûte aucun aller-retour vers la base, et les contenus d'un lot
+ * sont résolus ensemble (messages personnalisés : deux allers-retours par lot, pas par notification).
+ */
+@Component
+public class NotificationMessageStore {
+
+    // Contenus déjà enregistrés, par empreinte ; immuables et détachés de toute session
+    private final Map<String, NotificationMessage> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    private NotificationMessageRepository messageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${notification.message-cache.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    /**
+     * Associe à une notification le contenu partagé correspondant à son titre et à son message.
+     *
+     * @param notification La notification à sauvegarder.
+     */
+    public void resolve(Notification notification) {
+        resolveAll(List.of(notification));
+    }
+
+    /**
+     * Associe à chaque notification le contenu partagé correspondant, en créant les contenus manquants.
+     * Les contenus absents du cache coûtent une lecture groupée, puis une insertion groupée pour ceux
+     * qui n'existent pas encore, dans une transaction courte : à appeler avant d'ouvrir la transaction
+     * d'insertion des notifications, pour ne jamais tenir deux connexions à la fois.
+     *
+     * @param notifications Les notifications à sauvegarder.
+     */
+    public void resolveAll(Collection<Notification> notifications) {
+        Map<String, List<Notification>> unresolved = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            if (notification.getContent() != null) {
+                continue;
+            }
+            String hash = NotificationMessage.hashOf(notification.getTitle(), notification.getMessage());
+            NotificationMessage cached = cache.get(hash);
+            if (cached != null) {
+                hits.increment();
+                notification.setContent(cached);
+            } else {
+                unresolved.computeIfAbsent(hash, key -> new ArrayList<>()).add(notification);
+            }
+        }
+        if (unresolved.isEmpty()) {
+            return;
+        }
+
+        misses.add(unresolved.size());
+        Map<String, NotificationMessage> stored = findOrCreateAll(unresolved);
+        for (Map.Entry<String, List<Notification>> entry : unresolved.entrySet()) {
+            NotificationMessage content = stored.get(entry.getKey());
+            entry.getValue().forEach(notification -> notification.setContent(content));
+            if (cache.size() >= maxEntries) {
+                trim();
+            }
+            cache.put(entry.getKey(), content);
+        }
+    }
+
+    /**
+     * Oublie les contenus associés à ces notifications, en mémoire comme sur les notifications elles-mêmes.
+     * À appeler quand une insertion échoue : l'un d'eux a pu être supprimé entre-temps par la rétention
+     * (contenu qui n'était plus référencé) ; le prochain resolveAll les relit ou les recrée.
+     *
+     * @param notifications Les notifications dont l'insertion a échoué.
+     */
+    public void forget(Collection<Notification> notifications) {
+        for (Notification notification : notifications) {
+            NotificationMessage content = notification.getContent();
+            if (content != null) {
+                cache.remove(content.getHash(), content);
+                notification.setContent(null);
+            }
+        }
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    // Transaction courte, terminée avant l'insertion des notifications : les contenus renvoyés n'appartiennent
+    // à aucune session (ils peuvent être partagés entre threads)
+    private Map<String, NotificationMessage> findOrCreateAll(Map<String, List<Notification>> unresolved) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            return transaction.execute(status -> findOrCreateAllInTransaction(unresolved));
+        } catch (DataIntegrityViolationException e) {
+            // Une partie des contenus vient d'être créée par une autre transaction : la relecture les trouve
+            return transaction.execute(status -> findOrCreateAllInTransaction(unresolved));
+        }
+    }
+
+    private Map<String, NotificationMessage> findOrCreateAllInTransaction(Map<String, List<Notification>> unresolved) {
+        Map<String, NotificationMessage> stored = new HashMap<>();
+        for (NotificationMessage content : messageRepository.findByHashIn(unresolved.keySet())) {
+            stored.put(content.getHash(), content);
+        }
+        List<NotificationMessage> missing = new ArrayList<>();
+        for (Map.Entry<String, List<Notification>> entry : unresolved.entrySet()) {
+            if (!stored.containsKey(entry.getKey())) {
+                Notification first = entry.getValue().get(0);
+                missing.add(new NotificationMessage(first.getTitle(), first.getMessage()));
+            }
+        }
+        // INSERT batchés (IDs alloués par séquence)
+        for (NotificationMessage content : messageRepository.saveAllAndFlush(missing)) {
+            stored.put(content.getHash(), content);
+        }
+        return stored;
+    }
+
+    // Libère ~10 % de la capacité ; les contenus retirés seront relus depuis la base au besoin
+    private void trim() {
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<String> keys = cache.keySet().iterator();
+        while (cache.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
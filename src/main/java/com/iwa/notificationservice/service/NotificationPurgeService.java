@@ -0,0 +1,54 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.dto.JobStatus;
+import com.iwa.notificationservice.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Purge par tranches des notifications d'un utilisateur, exécutée en tâche de fond.
+ * Chaque tranche est un DELETE borné par une plage d'IDs dans sa propre transaction : aucune connexion
+ * ni aucun verrou n'est conservé pendant toute la purge.
+ */
+@Service
+public class NotificationPurgeService {
+
+    static final String JOB_TYPE = "notification-purge";
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private JobRegistry jobRegistry;
+
+    @Value("${notification.purge.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    /**
+     * Lancer la purge des notifications d'un utilisateur.
+     *
+     * @param userId L'ID de l'utilisateur.
+     * @return L'état initial du traitement, dont l'ID permet de suivre la progression.
+     */
+    public JobStatus startPurge(Long userId) {
+        return jobRegistry.submit(JOB_TYPE, progress -> purge(userId, progress));
+    }
+
+    void purge(Long userId, JobRegistry.JobProgress progress) {
+        Long maxId = notificationRepository.findMaxIdByUserId(userId);
+        if (maxId == null) {
+            progress.setTotal(0);
+            return;
+        }
+        progress.setTotal(notificationRepository.countByUserId(userId));
+        int deleted;
+        do {
+            deleted = notificationService.deleteNotificationsChunk(userId, maxId, chunkSize);
+            progress.advance(deleted);
+        } while (deleted > 0);
+    }
+}
@@ -0,0 +1,202 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.dto.NotificationCursor;
+import com.iwa.notificationservice.dto.NotificationView;
+import com.iwa.notificationservice.repository.JobLockRepository;
+import com.iwa.notificationservice.repository.NotificationMessageRepository;
+import com.iwa.notificationservice.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rétention des notifications, appliquée périodiquement en tâche de fond (un job du JobRegistry).
+ * Deux politiques, désactivables indépendamment :
+ * <ul>
+ *     <li>les notifications lues plus anciennes que read-max-age sont supprimées ;</li>
+ *     <li>au-delà de max-per-user notifications, les plus anciennes d'un utilisateur sont supprimées.</li>
+ * </ul>
+ * Chaque passe supprime ensuite les contenus partagés (notification_message) qui ne sont plus référencés par
+ * aucune notification, laissés par la rétention comme par les purges.
+ * Les suppressions se font par petites plages d'IDs, chacune dans sa propre transaction, avec une pause
+ * entre deux lots pour limiter la charge imposée à la base.
+ * Le traitement est planifié sur toutes les instances, mais une seule l'exécute : celle qui prend le verrou
+ * partagé (table job_lock).
+ */
+@Service
+@ConditionalOnProperty(name = "notification.retention.enabled", havingValue = "true", matchIfMissing = true)
+public class NotificationRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationRetentionService.class);
+
+    static final String JOB_TYPE = "notification-retention";
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private JobRegistry jobRegistry;
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    @Autowired
+    private NotificationMessageRepository messageRepository;
+
+    // Durée de conservation des notifications lues (0 : politique désactivée)
+    @Value("${notification.retention.read-max-age:30d}")
+    private Duration readMaxAge = Duration.ofDays(30);
+
+    // Nombre maximum de notifications conservées par utilisateur (0 : politique désactivée)
+    @Value("${notification.retention.max-per-user:0}")
+    private int maxPerUser;
+
+    // Âge minimum d'un contenu plus référencé avant sa suppression : un contenu tout juste résolu par une
+    // insertion pas encore validée n'est pas concerné (0 : suppression désactivée)
+    @Value("${notification.retention.unreferenced-message-min-age:1d}")
+    private Duration unreferencedMessageMinAge = Duration.ofDays(1);
+
+    @Value("${notification.retention.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${notification.retention.pause-between-batches:100ms}")
+    private Duration pauseBetweenBatches = Duration.ofMillis(100);
+
+    // Durée du bail sur le verrou partagé : doit dépasser la passe la plus longue (repris à expiration si
+    // l'instance s'arrête en cours de passe)
+    @Value("${notification.retention.lock-duration:6h}")
+    private Duration lockDuration = Duration.ofHours(6);
+
+    // Une seule passe à la fois sur cette instance
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${notification.retention.cron:0 30 2 * * *}")
+    public void scheduleRetention() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Notification retention still running, skipping this run");
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (jobLockRepository.tryAcquire(JOB_TYPE, NotificationCacheBroadcaster.INSTANCE_ID, now, now.plus(lockDuration)) == 0) {
+            running.set(false);
+            log.info("Notification retention running on another instance, skipping this run");
+            return;
+        }
+        jobRegistry.submit(JOB_TYPE, progress -> {
+            try {
+                applyRetention(progress);
+            } finally {
+                jobLockRepository.release(JOB_TYPE, NotificationCacheBroadcaster.INSTANCE_ID, LocalDateTime.now());
+                running.set(false);
+            }
+        });
+    }
+
+    void applyRetention(JobRegistry.JobProgress progress) {
+        long deleted = 0;
+        try {
+            if (!readMaxAge.isZero()) {
+                deleted += deleteExpiredReadNotifications(LocalDateTime.now().minus(readMaxAge), progress);
+            }
+            if (maxPerUser > 0) {
+                deleted += deleteOverflowNotifications(progress);
+            }
+            if (!unreferencedMessageMinAge.isZero()) {
+                long messages = deleteUnreferencedMessages(LocalDateTime.now().minus(unreferencedMessageMinAge));
+                log.info("Notification retention deleted {} unreferenced message contents", messages);
+            }
+        } catch (InterruptedException e) {
+            // Arrêt de l'application : la passe suivante reprendra là où celle-ci s'est arrêtée
+            Thread.currentThread().interrupt();
+        }
+        log.info("Notification retention deleted {} notifications", deleted);
+    }
+
+    // Parcourt la clé primaire par plages de batchSize IDs, jusqu'à la dernière notification créée avant la limite
+    long deleteExpiredReadNotifications(LocalDateTime before, JobRegistry.JobProgress progress)
+            throws InterruptedException {
+        Long minId = notificationRepository.findMinId();
+        Long maxId = notificationRepository.findMaxIdCreatedBefore(before);
+        if (minId == null || maxId == null) {
+            return 0;
+        }
+        long deleted = 0;
+        for (long fromId = minId; fromId <= maxId; fromId += batchSize) {
+            long toId = Math.min(fromId + batchSize - 1, maxId);
+            int count = notificationService.deleteReadNotificationsBetween(fromId, toId, before);
+            if (count > 0) {
+                deleted += count;
+                progress.advance(count);
+                pause();
+            }
+        }
+        return deleted;
+    }
+
+    long deleteOverflowNotifications(JobRegistry.JobProgress progress) throws InterruptedException {
+        long deleted = 0;
+        for (Long userId : notificationRepository.findUserIdsWithMoreThan(maxPerUser)) {
+            // Page de taille 1 à l'offset maxPerUser : la plus récente des notifications en trop
+            List<NotificationView> firstExcess = notificationRepository.findFirstPageByUserId(userId,
+                    PageRequest.of(maxPerUser, 1));
+            if (firstExcess.isEmpty()) {
+                continue;
+            }
+            NotificationCursor cursor = NotificationCursor.of(firstExcess.get(0));
+            int count;
+            while ((count = notificationService.deleteNotificationsUpToCursor(userId, cursor, batchSize)) > 0) {
+                deleted += count;
+                progress.advance(count);
+                pause();
+            }
+        }
+        return deleted;
+    }
+
+    // Parcourt notification_message par plages de batchSize IDs ; la recherche des références passe par
+    // idx_notification_message
+    long deleteUnreferencedMessages(LocalDateTime before) throws InterruptedException {
+        Long minId = messageRepository.findMinId();
+        Long maxId = messageRepository.findMaxId();
+        if (minId == null) {
+            return 0;
+        }
+        long deleted = 0;
+        for (long fromId = minId; fromId <= maxId; fromId += batchSize) {
+            long toId = Math.min(fromId + batchSize - 1, maxId);
+            int count;
+            try {
+                count = messageRepository.deleteUnreferencedBetween(fromId, toId, before);
+            } catch (DataIntegrityViolationException e) {
+                // Un contenu de la plage vient d'être de nouveau référencé : plage reprise à la passe suivante
+                log.debug("Skipping message contents {}-{} referenced concurrently", fromId, toId);
+                continue;
+            }
+            if (count > 0) {
+                deleted += count;
+                pause();
+            }
+        }
+        return deleted;
+    }
+
+    private void pause() throws InterruptedException {
+        if (!pauseBetweenBatches.isZero()) {
+            Thread.sleep(pauseBetweenBatches.toMillis());
+        }
+    }
+}
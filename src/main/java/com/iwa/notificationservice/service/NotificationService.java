@@ -1,71 +1,596 @@
 package com.iwa.notificationservice.service;
 
+import com.iwa.notificationservice.dto.NotificationCursor;
+import com.iwa.notificationservice.dto.NotificationPage;
+import com.iwa.notificationservice.dto.NotificationView;
 import com.iwa.notificationservice.model.Notification;
 import com.iwa.notificationservice.repository.NotificationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class NotificationService {
 
+    // Nombre maximum de notifications rejouées à la reconnexion d'un flux SSE
+    private static final int MAX_STREAM_REPLAY = 100;
+
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    @Autowired
+    private NotificationStreamRegistry streamRegistry;
+
+    @Autowired
+    private NotificationListCache notificationListCache;
+
+    @Autowired
+    private NotificationCacheBroadcaster cacheBroadcaster;
+
+    @Autowired
+    private NotificationStreamBroadcaster streamBroadcaster;
+
+    @Autowired
+    private ReadMarkBuffer readMarkBuffer;
+
+    @Autowired
+    private NotificationMessageStore notificationMessageStore;
+
+    // Clé "userId:idempotencyKey" -> ID de la notification créée ; rechargée à chaque relance (état à jour)
+    @Autowired
+    private IdempotencyCache<Long> notificationIdempotencyCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Mode write-behind : les marquages unitaires "lu" sont mis en attente et écrits par lots (ReadMarkFlusher)
+    @Value("${notification.read-buffer.enabled:false}")
+    private boolean readBufferEnabled;
+
     /**
      * Créer une nouvelle notification.
+     * Si elle porte une clé d'idempotence déjà utilisée par cet utilisateur, la notification existante est
+     * renvoyée et rien n'est inséré.
      *
      * @param notification La notification à sauvegarder.
      * @return La notification sauvegardée.
      */
     public Notification createNotification(Notification notification) {
-        return notificationRepository.save(notification);
+        String scopedKey = scopedIdempotencyKey(notification);
+        if (scopedKey != null) {
+            Long existingId = notificationIdempotencyCache.get(scopedKey);
+            Optional<Notification> stored = existingId != null
+                    ? notificationRepository.findById(existingId)
+                    : notificationRepository.findByUserIdAndIdempotencyKey(notification.getUserId(), notification.getIdempotencyKey());
+            if (stored.isPresent()) {
+                notificationIdempotencyCache.put(scopedKey, stored.get().getId());
+                return stored.get();
+            }
+        }
+
+        notificationMessageStore.resolve(notification);
+        Notification savedNotification;
+        try {
+            savedNotification = notificationRepository.save(notification);
+        } catch (DataIntegrityViolationException e) {
+            if (scopedKey != null) {
+                // Même clé insérée entre-temps par une relance concurrente
+                Optional<Notification> stored = notificationRepository.findByUserIdAndIdempotencyKey(
+                        notification.getUserId(), notification.getIdempotencyKey());
+                if (stored.isPresent()) {
+                    return stored.get();
+                }
+            }
+            prepareRetry(List.of(notification));
+            savedNotification = notificationRepository.save(notification);
+        }
+        if (!savedNotification.isRead()) {
+            addUnreadAfterCommit(savedNotification.getUserId(), 1);
+        }
+        invalidateAfterCommit(Set.of(savedNotification.getUserId()));
+        publishAfterCommit(List.of(savedNotification));
+        rememberAfterCommit(List.of(savedNotification));
+        return savedNotification;
     }
 
     /**
-     * Récupérer toutes les notifications d'un utilisateur.
+     * Créer plusieurs notifications en une seule transaction.
+     * Les INSERT sont regroupés en batchs JDBC grâce aux IDs alloués par séquence.
+     * Les notifications dont la clé d'idempotence est déjà connue (en base ou plus haut dans la liste)
+     * ne sont pas insérées : la notification existante prend leur place dans le résultat. Une clé insérée
+     * entre-temps par un lot concurrent ne fait pas échouer le lot : il est rejoué après relecture des clés,
+     * puis, si le conflit se répète, inséré ligne par ligne.
+     *
+     * @param notifications Les notifications à sauvegarder.
+     * @return Les notifications sauvegardées, dans l'ordre de la liste reçue.
+     */
+    public List<Notification> createNotifications(List<Notification> notifications) {
+        // Contenus résolus avant d'ouvrir la transaction d'insertion (une seule connexion tenue à la fois)
+        notificationMessageStore.resolveAll(notifications);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            return transaction.execute(status -> insertNotifications(notifications));
+        } catch (DataIntegrityViolationException e) {
+            // Les clés validées entre-temps par un lot concurrent sont trouvées par la relecture de insertNotifications
+            prepareRetry(notifications);
+        }
+        try {
+            return transaction.execute(status -> insertNotifications(notifications));
+        } catch (DataIntegrityViolationException e) {
+            // Nouveau conflit : une transaction par notification, chaque conflit de clé résolu par relecture
+            prepareRetry(notifications);
+            List<Notification> result = new ArrayList<>(notifications.size());
+            for (Notification notification : notifications) {
+                result.add(createNotification(notification));
+            }
+            return result;
+        }
+    }
+
+    // Une insertion a échoué sur une contrainte : clé d'idempotence déjà utilisée, ou contenu gardé en mémoire
+    // supprimé entre-temps (plus référencé, voir NotificationRetentionService). Les contenus sont relus ou
+    // recréés, et les IDs alloués pendant la transaction annulée abandonnés
+    private void prepareRetry(List<Notification> notifications) {
+        notifications.forEach(notification -> notification.setId(null));
+        notificationMessageStore.forget(notifications);
+        notificationMessageStore.resolveAll(notifications);
+    }
+
+    private List<Notification> insertNotifications(List<Notification> notifications) {
+        if (!hasIdempotencyKeys(notifications)) {
+            return saveNotifications(notifications);
+        }
+
+        Map<String, Notification> known = findByIdempotencyKeys(notifications);
+        List<Notification> fresh = new ArrayList<>(notifications.size());
+        List<Notification> result = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            String scopedKey = scopedIdempotencyKey(notification);
+            Notification previous = scopedKey != null ? known.putIfAbsent(scopedKey, notification) : null;
+            if (previous != null) {
+                result.add(previous);
+            } else {
+                fresh.add(notification);
+                result.add(notification);
+            }
+        }
+        // Nouvelles entités : saveAll les persiste telles quelles, le résultat contient donc les instances sauvegardées
+        if (!fresh.isEmpty()) {
+            saveNotifications(fresh);
+        }
+        return result;
+    }
+
+    private List<Notification> saveNotifications(List<Notification> notifications) {
+        List<Notification> savedNotifications = notificationRepository.saveAll(notifications);
+        Set<Long> userIds = new LinkedHashSet<>();
+        Map<Long, Long> unreadDeltas = new HashMap<>();
+        for (Notification savedNotification : savedNotifications) {
+            userIds.add(savedNotification.getUserId());
+            if (!savedNotification.isRead()) {
+                unreadDeltas.merge(savedNotification.getUserId(), 1L, Long::sum);
+            }
+        }
+        addUnreadAfterCommit(unreadDeltas);
+        invalidateAfterCommit(userIds);
+        publishAfterCommit(savedNotifications);
+        rememberAfterCommit(savedNotifications);
+        return savedNotifications;
+    }
+
+    /**
+     * Ouvrir un flux SSE des nouvelles notifications d'un utilisateur.
+     * Avec un Last-Event-ID valide, les notifications créées depuis cet événement sont rejouées d'abord ;
+     * au-delà de MAX_STREAM_REPLAY, le client reçoit un événement "resync" et recharge sa liste.
+     *
+     * @param userId      L'ID de l'utilisateur.
+     * @param lastEventId Le dernier ID d'événement reçu par le client, ou null.
+     * @return L'émetteur SSE de la connexion.
+     */
+    public SseEmitter streamNotifications(Long userId, String lastEventId) {
+        // Abonnement d'abord : aucune notification créée pendant la relecture n'est perdue
+        NotificationStreamRegistry.Subscription subscription = streamRegistry.subscribe(userId);
+        List<Notification> missed = List.of();
+        boolean resync = false;
+        if (lastEventId != null && !lastEventId.isEmpty()) {
+            try {
+                NotificationCursor position = NotificationCursor.decode(lastEventId);
+                // Une ligne de plus pour savoir si la relecture serait tronquée
+                missed = notificationRepository.findPageByUserIdAfter(
+                        userId, position.createdAt(), position.id(), PageRequest.ofSize(MAX_STREAM_REPLAY + 1));
+            } catch (IllegalArgumentException e) {
+                // Last-Event-ID inconnu : pas de relecture
+            }
+        }
+        if (missed.size() > MAX_STREAM_REPLAY) {
+            missed = List.of();
+            resync = true;
+        }
+        subscription.start(missed, resync);
+        return subscription.getEmitter();
+    }
+
+    /**
+     * Récupérer toutes les notifications d'un utilisateur (servies depuis le cache si présentes).
      *
      * @param userId L'ID de l'utilisateur.
      * @return La liste des notifications.
      */
-    public List<Notification> getNotificationsByUserId(Long userId) {
-        return notificationRepository.findByUserId(userId);
+    public List<NotificationView> getNotificationsByUserId(Long userId) {
+        // Pas de transaction autour du cache : seule la requête du chargeur (en lecture seule, comme toute
+        // méthode du repository) prend une connexion, et uniquement en cas d'absence
+        return applyPendingReads(userId,
+                notificationListCache.get(userId, false, () -> notificationRepository.findViewsByUserId(userId)));
     }
 
     /**
-     * Récupérer toutes les notifications non lues d'un utilisateur.
+     * Récupérer une page de notifications d'un utilisateur, des plus récentes aux plus anciennes.
+     *
+     * @param userId L'ID de l'utilisateur.
+     * @param cursor Le curseur renvoyé par la page précédente, ou null pour la première page.
+     * @param size   Le nombre maximum de notifications à retourner.
+     * @return La page de notifications et le curseur de la page suivante.
+     */
+    public NotificationPage getNotificationsPage(Long userId, String cursor, int size) {
+        // Une ligne de plus que demandé pour savoir s'il reste une page, sans requête COUNT
+        Pageable limit = PageRequest.ofSize(size + 1);
+        List<NotificationView> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = notificationRepository.findFirstPageByUserId(userId, limit);
+        } else {
+            NotificationCursor position = NotificationCursor.decode(cursor);
+            rows = notificationRepository.findPageByUserIdBefore(userId, position.createdAt(), position.id(), limit);
+        }
+
+        rows = applyPendingReads(userId, rows);
+        if (rows.size() <= size) {
+            return new NotificationPage(rows, null);
+        }
+        List<NotificationView> items = rows.subList(0, size);
+        return new NotificationPage(items, NotificationCursor.of(items.get(size - 1)).encode());
+    }
+
+    /**
+     * Récupérer toutes les notifications non lues d'un utilisateur (servies depuis le cache si présentes).
      *
      * @param userId L'ID de l'utilisateur.
      * @return La liste des notifications non lues.
      */
-    public List<Notification> getUnreadNotificationsByUserId(Long userId) {
-        return notificationRepository.findByUserIdAndReadFalse(userId);
+    public List<NotificationView> getUnreadNotificationsByUserId(Long userId) {
+        List<NotificationView> unread =
+                notificationListCache.get(userId, true, () -> notificationRepository.findUnreadViewsByUserId(userId));
+        if (!readMarkBuffer.hasPending(userId)) {
+            return unread;
+        }
+        return unread.stream().filter(view -> !readMarkBuffer.isPending(userId, view.id())).toList();
     }
 
     /**
-     * Marquer une notification comme lue.
+     * Compter les notifications non lues d'un utilisateur.
+     * Servi depuis la mémoire ; la base n'est interrogée qu'au premier accès pour cet utilisateur.
+     * En mode write-behind, les marquages encore dans le {@link ReadMarkBuffer} ne sont pas déduits : le compteur
+     * suit leur écriture, avec le retard d'un flush (notification.read-buffer.flush-interval-ms). Les déduire
+     * sous-compterait les IDs déjà lus ou d'un autre utilisateur, que seul l'UPDATE écarte.
+     *
+     * @param userId L'ID de l'utilisateur.
+     * @return Le nombre de notifications non lues.
+     */
+    public long getUnreadCount(Long userId) {
+        return unreadCounterStore.get(userId, () -> notificationRepository.countByUserIdAndReadFalse(userId));
+    }
+
+    /**
+     * Marquer une notification comme lue. Un UPDATE conditionnel (read = false) décide seul du passage à lue :
+     * deux appels concurrents ne décrémentent le compteur de non lues qu'une fois.
      *
      * @param notificationId L'ID de la notification.
      * @return La notification mise à jour.
      */
+    @Transactional
     public Notification markAsRead(Long notificationId) {
-        Optional<Notification> notificationOpt = notificationRepository.findById(notificationId);
-        if (notificationOpt.isPresent()) {
-            Notification notification = notificationOpt.get();
-            notification.setRead(true);
-            return notificationRepository.save(notification);
+        int updated = notificationRepository.markAsReadById(notificationId);
+        Notification notification = notificationRepository.findById(notificationId)
+                .orElseThrow(() -> new RuntimeException("Notification with ID " + notificationId + " not found"));
+        if (updated > 0) {
+            addUnreadAfterCommit(notification.getUserId(), -updated);
+            invalidateAfterCommit(Set.of(notification.getUserId()));
+        }
+        return notification;
+    }
+
+    public boolean isReadBufferEnabled() {
+        return readBufferEnabled;
+    }
+
+    /**
+     * Mettre en attente le marquage "lu" d'une notification (mode write-behind), sans accès à la base.
+     * Les listes le reflètent immédiatement ; le compteur de non lues est corrigé à l'écriture.
+     * Seules les notifications de l'utilisateur seront effectivement marquées.
+     *
+     * @param userId         L'ID de l'utilisateur authentifié.
+     * @param notificationId L'ID de la notification.
+     */
+    public void markAsReadDeferred(Long userId, Long notificationId) {
+        readMarkBuffer.add(userId, notificationId);
+    }
+
+    /**
+     * Écrire en une seule transaction des marquages "lu" regroupés par utilisateur (un UPDATE par utilisateur).
+     *
+     * @param idsByUser Les IDs des notifications à marquer, par utilisateur.
+     * @return Le nombre de notifications passées à lues.
+     */
+    @Transactional
+    public int markAsReadByUser(Map<Long, ? extends Collection<Long>> idsByUser) {
+        int total = 0;
+        Map<Long, Long> unreadDeltas = new HashMap<>();
+        for (Map.Entry<Long, ? extends Collection<Long>> entry : idsByUser.entrySet()) {
+            int updated = notificationRepository.markAsReadByUserIdAndIdIn(entry.getKey(), entry.getValue());
+            if (updated > 0) {
+                unreadDeltas.put(entry.getKey(), (long) -updated);
+                total += updated;
+            }
+        }
+        if (!unreadDeltas.isEmpty()) {
+            addUnreadAfterCommit(unreadDeltas);
+            invalidateAfterCommit(new HashSet<>(unreadDeltas.keySet()));
+        }
+        return total;
+    }
+
+    /**
+     * Marquer comme lues toutes les notifications d'un utilisateur, sans charger les entités.
+     *
+     * @param userId L'ID de l'utilisateur.
+     * @return Le nombre de notifications passées à lues.
+     */
+    @Transactional
+    public int markAllAsRead(Long userId) {
+        int updated = notificationRepository.markAllAsReadByUserId(userId);
+        addUnreadAfterCommit(userId, -updated);
+        if (updated > 0) {
+            invalidateAfterCommit(Set.of(userId));
+        }
+        return updated;
+    }
+
+    /**
+     * Marquer comme lues une liste de notifications d'un utilisateur, sans charger les entités.
+     * Les IDs qui n'appartiennent pas à l'utilisateur ou déjà lus sont ignorés.
+     *
+     * @param userId          L'ID de l'utilisateur.
+     * @param notificationIds Les IDs des notifications.
+     * @return Le nombre de notifications passées à lues.
+     */
+    @Transactional
+    public int markAsRead(Long userId, Collection<Long> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return 0;
+        }
+        int updated = notificationRepository.markAsReadByUserIdAndIdIn(userId, notificationIds);
+        addUnreadAfterCommit(userId, -updated);
+        if (updated > 0) {
+            invalidateAfterCommit(Set.of(userId));
         }
-        throw new RuntimeException("Notification with ID " + notificationId + " not found");
+        return updated;
     }
 
     /**
-     * Supprimer toutes les notifications d'un utilisateur.
+     * Supprimer toutes les notifications d'un utilisateur en un seul DELETE.
+     * Pour un très grand volume, préférer la purge par tranches (NotificationPurgeService).
      *
      * @param userId L'ID de l'utilisateur.
      */
+    @Transactional
     public void deleteNotificationsByUserId(Long userId) {
         notificationRepository.deleteByUserId(userId);
+        evictUnreadAfterCommit(userId);
+        invalidateAfterCommit(Set.of(userId));
+    }
+
+    /**
+     * Supprimer une tranche des plus anciennes notifications d'un utilisateur, dans sa propre transaction.
+     *
+     * @param userId    L'ID de l'utilisateur.
+     * @param maxId     Seules les notifications d'ID inférieur ou égal sont supprimées.
+     * @param chunkSize Le nombre maximum de notifications supprimées.
+     * @return Le nombre de notifications supprimées (0 lorsqu'il n'en reste plus).
+     */
+    @Transactional
+    public int deleteNotificationsChunk(Long userId, Long maxId, int chunkSize) {
+        List<Long> ids = notificationRepository.findIdsByUserIdUpTo(userId, maxId, PageRequest.ofSize(chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = notificationRepository.deleteByUserIdAndIdBetween(userId, ids.get(0), ids.get(ids.size() - 1));
+        evictUnreadAfterCommit(userId);
+        invalidateAfterCommit(Set.of(userId));
+        return deleted;
+    }
+
+    /**
+     * Supprimer, dans une plage d'IDs, les notifications lues créées avant une date, dans sa propre transaction.
+     * Les compteurs de non lues ne sont pas affectés.
+     *
+     * @param fromId Borne basse (incluse) de la plage d'IDs.
+     * @param toId   Borne haute (incluse) de la plage d'IDs.
+     * @param before Seules les notifications créées strictement avant cette date sont supprimées.
+     * @return Le nombre de notifications supprimées.
+     */
+    @Transactional
+    public int deleteReadNotificationsBetween(Long fromId, Long toId, LocalDateTime before) {
+        List<Long> userIds = notificationRepository.findUserIdsOfReadBetween(fromId, toId, before);
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        int deleted = notificationRepository.deleteReadBetween(fromId, toId, before);
+        invalidateAfterCommit(new HashSet<>(userIds));
+        return deleted;
+    }
+
+    /**
+     * Supprimer une tranche des notifications d'un utilisateur plus anciennes qu'un curseur (inclus),
+     * dans sa propre transaction.
+     *
+     * @param userId    L'ID de l'utilisateur.
+     * @param cursor    La plus récente des notifications à supprimer.
+     * @param chunkSize Le nombre maximum de notifications supprimées.
+     * @return Le nombre de notifications supprimées (0 lorsqu'il n'en reste plus).
+     */
+    @Transactional
+    public int deleteNotificationsUpToCursor(Long userId, NotificationCursor cursor, int chunkSize) {
+        List<Long> ids = notificationRepository.findIdsByUserIdUpToCursor(userId, cursor.createdAt(), cursor.id(),
+                PageRequest.ofSize(chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = notificationRepository.deleteByUserIdAndIdBetweenUpToCursor(userId,
+                ids.get(0), ids.get(ids.size() - 1), cursor.createdAt(), cursor.id());
+        evictUnreadAfterCommit(userId);
+        invalidateAfterCommit(Set.of(userId));
+        return deleted;
+    }
+
+    // Les marquages en attente d'écriture sont reflétés dans les vues renvoyées
+    private List<NotificationView> applyPendingReads(Long userId, List<NotificationView> views) {
+        if (!readMarkBuffer.hasPending(userId)) {
+            return views;
+        }
+        return views.stream()
+                .map(view -> readMarkBuffer.isPending(userId, view.id()) ? view.asRead() : view)
+                .toList();
+    }
+
+    // Clé d'idempotence portée par l'utilisateur : deux producteurs peuvent choisir la même clé sans conflit
+    private static String scopedIdempotencyKey(Notification notification) {
+        String key = notification.getIdempotencyKey();
+        return key == null ? null : notification.getUserId() + ":" + key;
+    }
+
+    private static boolean hasIdempotencyKeys(List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            if (notification.getIdempotencyKey() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Notifications déjà créées avec l'une des clés de la liste, par clé : celles dont l'ID est en mémoire sont
+    // relues par clé primaire, les autres cherchées par clé d'idempotence (une requête chacune)
+    private Map<String, Notification> findByIdempotencyKeys(List<Notification> notifications) {
+        Map<String, Notification> known = new HashMap<>();
+        Set<Long> cachedIds = new HashSet<>();
+        Set<Long> unknownUserIds = new HashSet<>();
+        Set<String> unknownKeys = new HashSet<>();
+        for (Notification notification : notifications) {
+            String scopedKey = scopedIdempotencyKey(notification);
+            if (scopedKey == null) {
+                continue;
+            }
+            Long cachedId = notificationIdempotencyCache.get(scopedKey);
+            if (cachedId != null) {
+                cachedIds.add(cachedId);
+            } else {
+                unknownUserIds.add(notification.getUserId());
+                unknownKeys.add(notification.getIdempotencyKey());
+            }
+        }
+        // Relues par clé primaire : l'état renvoyé est celui de la base, pas celui du moment de la création.
+        // Une notification supprimée depuis libère sa clé
+        if (!cachedIds.isEmpty()) {
+            for (Notification stored : notificationRepository.findAllById(cachedIds)) {
+                known.putIfAbsent(scopedIdempotencyKey(stored), stored);
+            }
+        }
+        if (!unknownKeys.isEmpty()) {
+            for (Notification stored : notificationRepository.findByUserIdInAndIdempotencyKeyIn(unknownUserIds, unknownKeys)) {
+                known.putIfAbsent(scopedIdempotencyKey(stored), stored);
+            }
+        }
+        return known;
+    }
+
+    // Les clés ne sont mémorisées qu'une fois les notifications validées en base
+    private void rememberAfterCommit(List<Notification> notifications) {
+        runAfterCommit(() -> {
+            for (Notification notification : notifications) {
+                String scopedKey = scopedIdempotencyKey(notification);
+                if (scopedKey != null) {
+                    notificationIdempotencyCache.put(scopedKey, notification.getId());
+                }
+            }
+        });
+    }
+
+    // Les compteurs suivent la base : un delta n'est appliqué qu'une fois l'écriture validée, de sorte qu'un
+    // COUNT concurrent ne puisse pas le compter deux fois ni l'ignorer
+    private void addUnreadAfterCommit(Long userId, long delta) {
+        if (delta != 0) {
+            runAfterCommit(() -> unreadCounterStore.add(userId, delta));
+        }
+    }
+
+    private void addUnreadAfterCommit(Map<Long, Long> deltas) {
+        if (!deltas.isEmpty()) {
+            runAfterCommit(() -> deltas.forEach(unreadCounterStore::add));
+        }
+    }
+
+    // Évincé avant le commit, le compteur pourrait être recompté sur les lignes pas encore supprimées
+    private void evictUnreadAfterCommit(Long userId) {
+        runAfterCommit(() -> unreadCounterStore.evict(userId));
+    }
+
+    // Invalide les listes en cache une fois l'écriture visible en base, localement puis sur les autres instances
+    private void invalidateAfterCommit(Set<Long> userIds) {
+        runAfterCommit(() -> {
+            userIds.forEach(notificationListCache::invalidate);
+            cacheBroadcaster.broadcast(userIds);
+        });
+    }
+
+    // Les abonnés SSE ne doivent voir que des notifications validées en base
+    private void publishAfterCommit(List<Notification> notifications) {
+        runAfterCommit(() -> {
+            notifications.forEach(streamRegistry::publish);
+            streamBroadcaster.broadcast(notifications);
+        });
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package com.iwa.notificationservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iwa.notificationservice.dto.NotificationStreamEvent;
+import com.iwa.notificationservice.model.Notification;
+import com.iwa.notificationservice.repository.NotificationRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Propage les notifications créées aux flux SSE des autres instances via Kafka : un client reçoit ses
+ * notifications quelle que soit l'instance qui les a créées. Même fonctionnement que
+ * {@link NotificationCacheBroadcaster} (un group id par instance, événements propres ignorés).
+ * Seuls les IDs et destinataires circulent ; l'instance qui a un flux ouvert pour le destinataire relit la notification.
+ */
+@Service
+public class NotificationStreamBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationStreamBroadcaster.class);
+
+    // Notifications par enregistrement Kafka lors d'une création en masse
+    private static final int RECORD_SIZE = 500;
+
+    private static final TypeReference<List<NotificationStreamEvent>> EVENT_LIST = new TypeReference<>() {
+    };
+
+    @Autowired
+    private NotificationStreamRegistry streamRegistry;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    @Qualifier("broadcastKafkaTemplate")
+    private KafkaTemplate<Object, Object> kafkaTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${notification.kafka.stream-events.topic:notification-stream-events}")
+    private String topic;
+
+    /**
+     * Publie les notifications créées pour les flux ouverts sur les autres instances, sans attendre l'acquittement de Kafka.
+     *
+     * @param notifications Les notifications sauvegardées.
+     */
+    public void broadcast(List<Notification> notifications) {
+        for (int from = 0; from < notifications.size(); from += RECORD_SIZE) {
+            List<NotificationStreamEvent> chunk = notifications.subList(from, Math.min(from + RECORD_SIZE, notifications.size()))
+                    .stream()
+                    .map(NotificationStreamEvent::of)
+                    .toList();
+            String payload;
+            try {
+                payload = objectMapper.writeValueAsString(chunk);
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to serialize stream event", e);
+                return;
+            }
+            kafkaTemplate.send(topic, NotificationCacheBroadcaster.INSTANCE_ID, payload)
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            // Les clients concernés récupéreront ces notifications à leur reconnexion (Last-Event-ID)
+                            log.warn("Failed to broadcast {} notifications to other instances", chunk.size(), error);
+                        }
+                    });
+        }
+    }
+
+    @KafkaListener(id = "notification-stream-events",
+            topics = "${notification.kafka.stream-events.topic:notification-stream-events}",
+            groupId = "notification-stream-#{T(com.iwa.notificationservice.service.NotificationCacheBroadcaster).INSTANCE_ID}",
+            properties = "auto.offset.reset=latest")
+    public void listenStreamEvents(ConsumerRecord<String, String> record) {
+        if (NotificationCacheBroadcaster.INSTANCE_ID.equals(record.key())) {
+            return;
+        }
+        try {
+            List<Long> ids = objectMapper.readValue(record.value(), EVENT_LIST).stream()
+                    .filter(event -> streamRegistry.hasSubscribers(event.userId()))
+                    .map(NotificationStreamEvent::id)
+                    .toList();
+            if (!ids.isEmpty()) {
+                notificationRepository.findWithContentByIdIn(ids).forEach(streamRegistry::publish);
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed stream event");
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.dto.NotificationCursor;
+import com.iwa.notificationservice.model.Notification;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registre des abonnements SSE par utilisateur.
+ * Les connexions inactives ne consomment aucun thread (requêtes servlet asynchrones) : les envois sont
+ * exécutés sur des threads virtuels, un seul envoi en cours par abonnement pour préserver l'ordre ;
+ * un client lent ne bloque donc pas les envois vers les autres.
+ * Les notifications créées sur les autres instances arrivent par {@link NotificationStreamBroadcaster}.
+ * Un client trop lent dont la file dépasse max-pending est déconnecté ; il se reconnecte avec
+ * Last-Event-ID et récupère les événements manqués depuis la base.
+ */
+@Component
+public class NotificationStreamRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationStreamRegistry.class);
+
+    private static final String EVENT_NAME = "notification";
+
+    // Relecture tronquée : le client doit recharger sa liste
+    private static final String RESYNC_EVENT_NAME = "resync";
+
+    // Marqueur placé dans les files pour un heartbeat (comparé par identité)
+    private static final Notification HEARTBEAT = new Notification();
+
+    private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriptionCount = new AtomicInteger();
+    private final LongAdder droppedEvents = new LongAdder();
+
+    private final long timeoutMillis;
+    private final int maxPending;
+    private final Executor sender;
+
+    @Autowired
+    public NotificationStreamRegistry(@Value("${notification.stream.timeout:30m}") Duration timeout,
+                                      @Value("${notification.stream.max-pending:32}") int maxPending) {
+        this(timeout, maxPending, Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-sender-", 0).factory()));
+    }
+
+    NotificationStreamRegistry(Duration timeout, int maxPending, Executor sender) {
+        this.timeoutMillis = timeout.toMillis();
+        this.maxPending = maxPending;
+        this.sender = sender;
+    }
+
+    /**
+     * Enregistre un nouvel abonnement. Les événements publiés à partir de maintenant sont mis en file,
+     * mais ne sont envoyés qu'après l'appel à {@link Subscription#start(List, boolean)}.
+     *
+     * @param userId L'ID de l'utilisateur.
+     * @return L'abonnement créé.
+     */
+    public Subscription subscribe(Long userId) {
+        Subscription subscription = new Subscription(userId, new SseEmitter(timeoutMillis));
+        subscriptions.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+        subscriptionCount.incrementAndGet();
+
+        SseEmitter emitter = subscription.getEmitter();
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        return subscription;
+    }
+
+    /**
+     * Pousse une notification à tous les abonnements de son destinataire, sans jamais bloquer l'appelant.
+     *
+     * @param notification La notification sauvegardée.
+     */
+    public void publish(Notification notification) {
+        Set<Subscription> userSubscriptions = subscriptions.get(notification.getUserId());
+        if (userSubscriptions == null) {
+            return;
+        }
+        for (Subscription subscription : userSubscriptions) {
+            subscription.offer(notification);
+        }
+    }
+
+    /**
+     * @param userId L'ID de l'utilisateur.
+     * @return true si l'utilisateur a au moins un flux ouvert sur cette instance.
+     */
+    public boolean hasSubscribers(Long userId) {
+        return subscriptions.containsKey(userId);
+    }
+
+    // Commentaire SSE périodique : garde la connexion ouverte à travers les proxys et détecte les clients partis
+    @Scheduled(fixedDelayString = "${notification.stream.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        for (Set<Subscription> userSubscriptions : subscriptions.values()) {
+            for (Subscription subscription : userSubscriptions) {
+                subscription.offer(HEARTBEAT);
+            }
+        }
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptionCount.get();
+    }
+
+    public long getDroppedEventCount() {
+        return droppedEvents.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Set<Subscription> userSubscriptions : subscriptions.values()) {
+            for (Subscription subscription : userSubscriptions) {
+                subscription.close();
+            }
+        }
+        if (sender instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.userId, (userId, userSubscriptions) -> {
+            if (userSubscriptions.remove(subscription)) {
+                subscriptionCount.decrementAndGet();
+            }
+            return userSubscriptions.isEmpty() ? null : userSubscriptions;
+        });
+    }
+
+    /**
+     * Une connexion SSE et sa file d'envoi bornée.
+     */
+    public final class Subscription {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+
+        private final Queue<Notification> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Deque<Notification> replay = new ArrayDeque<>();
+        private Set<Long> replayedIds = Set.of();
+        private boolean resync;
+        private volatile boolean started;
+        private volatile boolean closed;
+
+        private Subscription(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        public SseEmitter getEmitter() {
+            return emitter;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Démarre l'envoi : les notifications manquées sont envoyées en premier, puis les événements
+         * arrivés depuis l'abonnement (sans doublon avec la relecture).
+         *
+         * @param missed Les notifications à rejouer, de la plus ancienne à la plus récente.
+         * @param resync true si la relecture a été abandonnée : un événement "resync" est envoyé en premier.
+         */
+        public void start(List<Notification> missed, boolean resync) {
+            Set<Long> ids = new HashSet<>();
+            for (Notification notification : missed) {
+                ids.add(notification.getId());
+            }
+            replay = new ArrayDeque<>(missed);
+            replayedIds = ids;
+            this.resync = resync;
+            started = true;
+            scheduleDrain();
+        }
+
+        private void offer(Notification notification) {
+            if (closed) {
+                return;
+            }
+            if (pending.incrementAndGet() > maxPending) {
+                pending.decrementAndGet();
+                droppedEvents.increment();
+                log.debug("Closing slow SSE subscriber for user {}", userId);
+                close();
+                return;
+            }
+            queue.add(notification);
+            if (started) {
+                scheduleDrain();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (closed || !draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                close();
+            }
+        }
+
+        private void drain() {
+            try {
+                if (resync) {
+                    resync = false;
+                    emitter.send(SseEmitter.event().name(RESYNC_EVENT_NAME).data(""));
+                }
+                Notification next;
+                while (!closed && (next = replay.poll()) != null) {
+                    emitter.send(toEvent(next));
+                }
+                while (!closed && (next = queue.poll()) != null) {
+                    pending.decrementAndGet();
+                    if (next == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else if (!replayedIds.contains(next.getId())) {
+                        emitter.send(toEvent(next));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client déconnecté
+                close();
+            } finally {
+                draining.set(false);
+            }
+            if (!closed && pending.get() > 0) {
+                scheduleDrain();
+            }
+        }
+
+        private SseEmitter.SseEventBuilder toEvent(Notification notification) {
+            return SseEmitter.event()
+                    .id(NotificationCursor.of(notification).encode())
+                    .name(EVENT_NAME)
+                    .data(notification, MediaType.APPLICATION_JSON);
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            remove(this);
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // Déjà terminé
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.model.OutboxEvent;
+import com.iwa.notificationservice.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publie sur Kafka les événements de l'outbox, dans l'ordre d'écriture.
+ * Un événement n'est marqué publié qu'après l'acquittement de Kafka : la livraison est au moins une fois,
+ * les consommateurs doivent être idempotents (clé = userId).
+ */
+@Component
+public class OutboxPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxPublisher.class);
+
+    private static final long SEND_TIMEOUT_SECONDS = 10;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private KafkaTemplate<Object, Object> kafkaTemplate;
+
+    @Value("${notification.outbox.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${notification.outbox.retention:7d}")
+    private Duration retention = Duration.ofDays(7);
+
+    /**
+     * Publie le prochain lot d'événements en attente.
+     * Les lignes sont verrouillées (SKIP LOCKED) pendant l'envoi : plusieurs instances se partagent l'outbox.
+     * Le lot est envoyé d'un bloc et les acquittements attendus ensemble : la transaction dure au plus un délai
+     * d'envoi, quelle que soit la taille du lot. Seuls les événements acquittés avant le premier échec sont
+     * marqués publiés ; les suivants sont renvoyés au prochain passage, dans l'ordre.
+     *
+     * @return Le nombre d'événements publiés.
+     */
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms:1000}")
+    @Transactional
+    public int publishPending() {
+        List<OutboxEvent> events = outboxEventRepository.findUnpublishedForUpdate(PageRequest.ofSize(batchSize));
+        List<CompletableFuture<?>> sends = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            try {
+                CompletableFuture<?> send = kafkaTemplate.send(event.getTopic(), event.getEventKey(), event.getPayload());
+                sends.add(send);
+                if (send.isCompletedExceptionally()) {
+                    // Échec immédiat (métadonnées indisponibles) : inutile d'envoyer la suite du lot
+                    break;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to send outbox event {} to {}, will retry", event.getId(), event.getTopic(), e);
+                break;
+            }
+        }
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Failed to publish some outbox events, will retry", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int published = 0;
+        for (CompletableFuture<?> send : sends) {
+            // Les événements suivants attendent : l'ordre par clé est conservé
+            if (!send.isDone() || send.isCompletedExceptionally()) {
+                break;
+            }
+            events.get(published).setPublishedAt(now);
+            published++;
+        }
+        return published;
+    }
+
+    @Scheduled(cron = "${notification.outbox.cleanup-cron:0 0 3 * * *}")
+    @Transactional
+    public void deletePublishedEvents() {
+        int deleted = outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Deleted {} published outbox events", deleted);
+        }
+    }
+}
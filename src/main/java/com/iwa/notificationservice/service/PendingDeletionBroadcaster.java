@@ -0,0 +1,60 @@
+package com.iwa.notificationservice.service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Propage aux autres instances les demandes de suppression décidées (approuvées ou rejetées), pour qu'elles
+ * retirent l'utilisateur de leur {@link PendingDeletionIndex}. Même fonctionnement que
+ * {@link NotificationCacheBroadcaster} (un group id par instance, événements propres ignorés).
+ */
+@Service
+public class PendingDeletionBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingDeletionBroadcaster.class);
+
+    @Autowired
+    private PendingDeletionIndex pendingDeletionIndex;
+
+    @Autowired
+    private KafkaTemplate<Object, Object> kafkaTemplate;
+
+    @Value("${notification.kafka.pending-deletion-release.topic:notification-pending-deletion-release}")
+    private String topic;
+
+    /**
+     * Publie la fin de la demande en attente d'un utilisateur, sans attendre l'acquittement de Kafka.
+     *
+     * @param userId L'ID de l'utilisateur.
+     */
+    public void broadcast(Long userId) {
+        kafkaTemplate.send(topic, NotificationCacheBroadcaster.INSTANCE_ID, String.valueOf(userId))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        // Les autres instances revérifieront l'utilisateur en base à l'expiration de son entrée
+                        log.warn("Failed to broadcast pending deletion release for user {}", userId, error);
+                    }
+                });
+    }
+
+    @KafkaListener(id = "notification-pending-deletion-release",
+            topics = "${notification.kafka.pending-deletion-release.topic:notification-pending-deletion-release}",
+            groupId = "notification-pending-deletion-#{T(com.iwa.notificationservice.service.NotificationCacheBroadcaster).INSTANCE_ID}",
+            properties = "auto.offset.reset=latest")
+    public void listenRelease(ConsumerRecord<String, String> record) {
+        if (NotificationCacheBroadcaster.INSTANCE_ID.equals(record.key())) {
+            return;
+        }
+        try {
+            pendingDeletionIndex.release(Long.parseLong(record.value()));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed pending deletion release event: {}", record.value());
+        }
+    }
+}
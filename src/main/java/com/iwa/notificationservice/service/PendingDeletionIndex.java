@@ -0,0 +1,106 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.model.AccountDeletionRequest.RequestStatus;
+import com.iwa.notificationservice.repository.AccountDeletionRequestRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Utilisateurs ayant une demande de suppression en attente (PENDING). Chargé au démarrage, avant celui des
+ * listeners Kafka, puis tenu à jour à chaque création, approbation ou rejet : une nouvelle demande d'un
+ * utilisateur déjà présent est absorbée sans accès à la base.
+ * Une décision prise sur une autre instance retire l'utilisateur via {@link PendingDeletionBroadcaster} ;
+ * au-delà de ttl, une entrée est de toute façon revérifiée en base (filet de sécurité si ce message est perdu).
+ * Entre instances, l'index partiel uk_deletion_request_pending_user (migration V8) reste la référence.
+ */
+@Component
+public class PendingDeletionIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingDeletionIndex.class);
+
+    // Demande en cours d'insertion sur cette instance : n'expire pas, libérée au commit ou au rollback
+    private static final long RESERVED = Long.MAX_VALUE;
+
+    // userId -> instant (ms) jusqu'auquel l'entrée est tenue pour sûre, ou RESERVED
+    private final Map<Long, Long> entries = new ConcurrentHashMap<>();
+
+    @Autowired
+    private AccountDeletionRequestRepository repository;
+
+    @Value("${notification.purge.pending-index-ttl:1m}")
+    private Duration ttl = Duration.ofMinutes(1);
+
+    @PostConstruct
+    public void load() {
+        confirmAll(repository.findUserIdsByStatus(RequestStatus.PENDING));
+        log.info("Loaded {} users with a pending deletion request", entries.size());
+    }
+
+    /**
+     * @param userId L'ID de l'utilisateur.
+     * @return true si l'utilisateur a une demande en attente connue et récente, ou en cours d'insertion.
+     */
+    public boolean contains(Long userId) {
+        Long until = entries.get(userId);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * Réserve un utilisateur avant l'insertion de sa demande.
+     * À n'appeler qu'après avoir vérifié en base que l'utilisateur n'a pas de demande en attente.
+     *
+     * @param userId L'ID de l'utilisateur.
+     * @return false si l'utilisateur a déjà une demande en attente (ou en cours d'insertion).
+     */
+    public boolean add(Long userId) {
+        long now = System.currentTimeMillis();
+        boolean[] reserved = {false};
+        entries.compute(userId, (id, until) -> {
+            if (until != null && until > now) {
+                return until;
+            }
+            reserved[0] = true;
+            return RESERVED;
+        });
+        return reserved[0];
+    }
+
+    /**
+     * Enregistre des utilisateurs dont la demande en attente est validée en base (lue, ou insérée et commitée).
+     *
+     * @param pendingUserIds Les IDs des utilisateurs.
+     */
+    public void confirmAll(Collection<Long> pendingUserIds) {
+        long until = System.currentTimeMillis() + ttl.toMillis();
+        for (Long userId : pendingUserIds) {
+            entries.put(userId, until);
+        }
+    }
+
+    public void remove(Long userId) {
+        entries.remove(userId);
+    }
+
+    /**
+     * Retire un utilisateur dont la demande a été décidée sur une autre instance, sauf si une nouvelle
+     * demande est en cours d'insertion ici.
+     *
+     * @param userId L'ID de l'utilisateur.
+     */
+    public void release(Long userId) {
+        entries.computeIfPresent(userId, (id, until) -> until == RESERVED ? until : null);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,119 @@
+package com.iwa.notificationservice.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Marquages "lu" en attente d'écriture (mode write-behind), regroupés par utilisateur.
+ * Un même ID marqué plusieurs fois n'est retenu qu'une fois. Les marquages restent visibles
+ * ({@link #isPending}) depuis leur ajout jusqu'à la fin de l'écriture qui les rend persistants,
+ * y compris pendant le flush.
+ * Ajouts et retraits d'un même utilisateur passent par compute : ils se sérialisent sur le verrou de l'entrée
+ * de la ConcurrentHashMap (les lectures ne bloquent pas).
+ */
+@Component
+public class ReadMarkBuffer {
+
+    // Marquages pas encore pris par un flush
+    private final Map<Long, Set<Long>> pending = new ConcurrentHashMap<>();
+
+    // Marquages pris par le flush en cours, pas encore validés en base
+    private final Map<Long, Set<Long>> flushing = new ConcurrentHashMap<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final int flushThreshold;
+
+    private volatile Runnable flushTrigger = () -> {
+    };
+
+    @Autowired
+    public ReadMarkBuffer(@Value("${notification.read-buffer.flush-threshold:500}") int flushThreshold) {
+        this.flushThreshold = flushThreshold;
+    }
+
+    /**
+     * Ajoute un marquage. Déclenche un flush anticipé quand le seuil est atteint.
+     *
+     * @param userId         L'ID de l'utilisateur propriétaire de la notification.
+     * @param notificationId L'ID de la notification.
+     * @return false si la notification était déjà en attente.
+     */
+    public boolean add(Long userId, Long notificationId) {
+        boolean[] added = new boolean[1];
+        // compute : l'ajout ne peut pas se glisser entre la lecture et le retrait de l'ensemble par drain()
+        pending.compute(userId, (id, ids) -> {
+            Set<Long> target = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            added[0] = target.add(notificationId);
+            return target;
+        });
+        if (added[0] && size.incrementAndGet() == flushThreshold) {
+            flushTrigger.run();
+        }
+        return added[0];
+    }
+
+    /**
+     * Remet en attente des marquages dont l'écriture a échoué.
+     */
+    public void requeue(Long userId, Collection<Long> notificationIds) {
+        for (Long notificationId : notificationIds) {
+            add(userId, notificationId);
+        }
+    }
+
+    /**
+     * Retire tous les marquages en attente pour les écrire. Ils restent visibles jusqu'à {@link #release}.
+     *
+     * @return Les IDs de notifications à marquer, par utilisateur.
+     */
+    public Map<Long, Set<Long>> drain() {
+        Map<Long, Set<Long>> drained = new HashMap<>();
+        for (Long userId : pending.keySet()) {
+            // Publié dans flushing avant d'être retiré de pending : isPending() le voit toujours dans l'un des deux
+            pending.computeIfPresent(userId, (id, ids) -> {
+                size.addAndGet(-ids.size());
+                flushing.put(id, ids);
+                drained.put(id, ids);
+                return null;
+            });
+        }
+        return drained;
+    }
+
+    /**
+     * Oublie les marquages d'un flush terminé (écrits, ou remis en attente après un échec).
+     */
+    public void release(Collection<Long> userIds) {
+        userIds.forEach(flushing::remove);
+    }
+
+    public boolean hasPending(Long userId) {
+        return pending.containsKey(userId) || flushing.containsKey(userId);
+    }
+
+    public boolean isPending(Long userId, Long notificationId) {
+        Set<Long> ids = pending.get(userId);
+        if (ids != null && ids.contains(notificationId)) {
+            return true;
+        }
+        ids = flushing.get(userId);
+        return ids != null && ids.contains(notificationId);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    void setFlushTrigger(Runnable flushTrigger) {
+        this.flushTrigger = flushTrigger;
+    }
+}
@@ -0,0 +1,93 @@
+package com.iwa.notificationservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Écrit en base les marquages "lu" du ReadMarkBuffer : toutes les flush-interval-ms, ou dès que
+ * flush-threshold marquages sont en attente. Un flush est une seule transaction (un UPDATE ... IN par
+ * utilisateur) ; en cas d'échec les marquages sont remis en attente. Le buffer est vidé à l'arrêt.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.read-buffer.enabled", havingValue = "true")
+public class ReadMarkFlusher {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadMarkFlusher.class);
+
+    @Autowired
+    private ReadMarkBuffer readMarkBuffer;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    // Flushs anticipés (seuil atteint), hors du thread de la requête HTTP
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("read-mark-flusher").daemon().factory());
+
+    // Un seul flush à la fois ; ReentrantLock plutôt que synchronized pour ne pas épingler un thread virtuel
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @PostConstruct
+    public void start() {
+        readMarkBuffer.setFlushTrigger(() -> {
+            try {
+                executor.execute(this::flushIfIdle);
+            } catch (RejectedExecutionException e) {
+                // Arrêt en cours : shutdown() videra le buffer
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${notification.read-buffer.flush-interval-ms:50}")
+    public void flushIfIdle() {
+        // Un flush déjà en cours reprendra les nouveaux marquages au prochain passage
+        if (flushLock.tryLock()) {
+            try {
+                flush();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        flushLock.lock();
+        try {
+            int flushed = flush();
+            log.info("Flushed {} buffered read marks on shutdown", flushed);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    int flush() {
+        Map<Long, Set<Long>> idsByUser = readMarkBuffer.drain();
+        if (idsByUser.isEmpty()) {
+            return 0;
+        }
+        try {
+            return notificationService.markAsReadByUser(idsByUser);
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush read marks of {} users, will retry", idsByUser.size(), e);
+            idsByUser.forEach(readMarkBuffer::requeue);
+            return 0;
+        } finally {
+            readMarkBuffer.release(idsByUser.keySet());
+        }
+    }
+}
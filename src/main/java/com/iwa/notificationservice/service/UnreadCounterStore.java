@@ -0,0 +1,107 @@
+package com.iwa.notificationservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Compteurs de notifications non lues par utilisateur, tenus en mémoire.
+ * Un compteur est initialisé paresseusement par une requête COUNT au premier accès, puis maintenu
+ * par NotificationService à chaque création, lecture ou suppression validée en base.
+ * Un COUNT pendant lequel le compteur de l'utilisateur a changé n'est pas retenu.
+ */
+@Component
+public class UnreadCounterStore {
+
+    // Générations par tranche d'utilisateurs : incrémentées à chaque delta ou éviction
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Map<Long, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final int maxEntries;
+
+    public UnreadCounterStore(@Value("${notification.unread-counter.max-entries:100000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Retourne le nombre de notifications non lues, en l'initialisant via le loader s'il est absent.
+     *
+     * @param userId L'ID de l'utilisateur.
+     * @param loader Requête de comptage exécutée uniquement si le compteur est absent.
+     * @return Le nombre de notifications non lues.
+     */
+    public long get(Long userId, LongSupplier loader) {
+        AtomicLong counter = counters.get(userId);
+        if (counter != null) {
+            return counter.get();
+        }
+        // Le COUNT est exécuté hors de tout verrou de la map
+        long generation = generations.get(stripe(userId));
+        long seeded = loader.getAsLong();
+        if (counters.size() >= maxEntries) {
+            trim();
+        }
+        // Vérifié sous compute : un delta ne peut pas se glisser entre la vérification et l'insertion
+        AtomicLong stored = counters.compute(userId, (id, existing) -> {
+            if (existing != null) {
+                return existing;
+            }
+            return generations.get(stripe(userId)) == generation ? new AtomicLong(seeded) : null;
+        });
+        return stored != null ? stored.get() : seeded;
+    }
+
+    public void increment(Long userId) {
+        add(userId, 1);
+    }
+
+    public void decrement(Long userId) {
+        add(userId, -1);
+    }
+
+    /**
+     * Applique un delta à un compteur déjà initialisé. Un compteur absent n'est pas créé :
+     * il sera calculé depuis la base au prochain accès. Un COUNT en cours pour l'utilisateur n'est pas retenu.
+     */
+    public void add(Long userId, long delta) {
+        generations.incrementAndGet(stripe(userId));
+        counters.computeIfPresent(userId, (id, counter) -> {
+            counter.updateAndGet(value -> Math.max(0, value + delta));
+            return counter;
+        });
+    }
+
+    /**
+     * Oublie un compteur, ainsi que tout COUNT en cours pour cet utilisateur.
+     */
+    public void evict(Long userId) {
+        generations.incrementAndGet(stripe(userId));
+        counters.remove(userId);
+    }
+
+    public void clear() {
+        counters.clear();
+    }
+
+    private static int stripe(Long userId) {
+        return Math.floorMod(userId.hashCode(), GENERATION_STRIPES);
+    }
+
+    // Libère ~10 % de la capacité quand la map est pleine ; les compteurs retirés seront recalculés
+    private void trim() {
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<Long> keys = counters.keySet().iterator();
+        while (counters.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
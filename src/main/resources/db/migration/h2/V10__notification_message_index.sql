@@ -0,0 +1,2 @@
+-- Équivalent H2 de db/migration/postgresql/V10__notification_message_index.sql
+CREATE INDEX idx_notification_message ON notification (message_id);
@@ -0,0 +1,3 @@
+-- Équivalent H2 de db/migration/postgresql/V11__message_backfill_lock.sql
+INSERT INTO job_lock (name, locked_until, locked_by)
+VALUES ('notification-message-backfill', TIMESTAMP '1970-01-01 00:00:00', '');
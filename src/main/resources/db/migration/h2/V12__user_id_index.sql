@@ -0,0 +1,2 @@
+-- Équivalent H2 de db/migration/postgresql/V12__user_id_index.sql
+CREATE INDEX idx_notification_user_id ON notification (user_id, id);
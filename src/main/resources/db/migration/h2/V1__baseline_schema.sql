@@ -0,0 +1,17 @@
+-- Équivalent H2 de db/migration/postgresql/V1__baseline_schema.sql, utilisé par les tests @DataJpaTest
+CREATE TABLE notification (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    BIGINT,
+    title      VARCHAR(255),
+    message    VARCHAR(255),
+    read       BOOLEAN NOT NULL,
+    created_at TIMESTAMP(6)
+);
+
+CREATE TABLE account_deletion_request (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id      BIGINT,
+    user_email   VARCHAR(255),
+    request_time TIMESTAMP(6),
+    status       SMALLINT CHECK (status BETWEEN 0 AND 2)
+);
@@ -0,0 +1,7 @@
+-- Équivalent H2 de db/migration/postgresql/V2__lookup_indexes.sql
+CREATE INDEX idx_notification_user_created ON notification (user_id, created_at DESC, id DESC);
+
+-- H2 ne supporte pas les index partiels : la colonne read est ajoutée à la clé à la place du WHERE
+CREATE INDEX idx_notification_user_unread ON notification (user_id, read, created_at DESC);
+
+CREATE INDEX idx_deletion_request_status_time ON account_deletion_request (status, request_time);
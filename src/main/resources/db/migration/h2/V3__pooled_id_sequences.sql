@@ -0,0 +1,4 @@
+-- Équivalent H2 de db/migration/postgresql/V3__pooled_id_sequences.sql.
+-- La base de test est vide : pas de recalage des séquences, et les colonnes IDENTITY restent inutilisées.
+CREATE SEQUENCE notification_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE account_deletion_request_seq START WITH 1 INCREMENT BY 50;
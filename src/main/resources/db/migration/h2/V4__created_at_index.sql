@@ -0,0 +1,2 @@
+-- Équivalent H2 de db/migration/postgresql/V4__created_at_index.sql
+CREATE INDEX idx_notification_created ON notification (created_at, id);
@@ -0,0 +1,19 @@
+-- Équivalent H2 de db/migration/postgresql/V5__deletion_purge_outbox.sql (sans index partiels)
+ALTER TABLE account_deletion_request ADD COLUMN purge_max_id BIGINT;
+ALTER TABLE account_deletion_request ADD COLUMN purged_count BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE account_deletion_request ADD COLUMN purge_completed_at TIMESTAMP(6);
+
+CREATE INDEX idx_deletion_request_purge_pending ON account_deletion_request (status, purge_completed_at);
+
+CREATE SEQUENCE outbox_event_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE outbox_event (
+    id           BIGINT PRIMARY KEY,
+    topic        VARCHAR(255) NOT NULL,
+    event_key    VARCHAR(255),
+    payload      VARCHAR      NOT NULL,
+    created_at   TIMESTAMP(6) NOT NULL,
+    published_at TIMESTAMP(6)
+);
+
+CREATE INDEX idx_outbox_event_unpublished ON outbox_event (published_at, id);
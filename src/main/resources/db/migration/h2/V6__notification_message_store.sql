@@ -0,0 +1,16 @@
+-- Équivalent H2 de db/migration/postgresql/V6__notification_message_store.sql.
+-- La base de test est vide : pas de reprise des contenus existants, clé étrangère validée d'emblée.
+CREATE SEQUENCE notification_message_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE notification_message (
+    id         BIGINT PRIMARY KEY,
+    hash       CHAR(64)     NOT NULL,
+    title      VARCHAR(255),
+    message    VARCHAR(255),
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_notification_message_hash UNIQUE (hash)
+);
+
+ALTER TABLE notification ADD COLUMN message_id BIGINT;
+ALTER TABLE notification ADD CONSTRAINT fk_notification_message
+    FOREIGN KEY (message_id) REFERENCES notification_message (id);
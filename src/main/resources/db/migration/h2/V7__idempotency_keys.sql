@@ -0,0 +1,9 @@
+-- Équivalent H2 de db/migration/postgresql/V7__idempotency_keys.sql (sans index partiels : les NULL y
+-- sont de toute façon distincts)
+ALTER TABLE notification ADD COLUMN idempotency_key VARCHAR(255);
+-- La clé en tête : comme l'index partiel sur Postgres, cet index ne sert que les recherches par clé, et
+-- n'est pas choisi à la place de idx_notification_user_created pour les requêtes par user_id seul
+CREATE UNIQUE INDEX uk_notification_idempotency ON notification (idempotency_key, user_id);
+
+ALTER TABLE account_deletion_request ADD COLUMN idempotency_key VARCHAR(255);
+CREATE UNIQUE INDEX uk_deletion_request_idempotency ON account_deletion_request (idempotency_key);
@@ -0,0 +1,9 @@
+-- Équivalent H2 de db/migration/postgresql/V8__pending_deletion_per_user.sql. H2 n'a pas d'index partiel :
+-- la colonne calculée vaut user_id pour une demande en attente (status = 0) et NULL sinon, et l'index unique
+-- sur cette colonne (NULL non comparés) n'admet qu'une demande en attente par utilisateur
+ALTER TABLE account_deletion_request
+    ADD COLUMN pending_user_id BIGINT GENERATED ALWAYS AS (CASE WHEN status = 0 THEN user_id END);
+CREATE UNIQUE INDEX uk_deletion_request_pending_user ON account_deletion_request (pending_user_id);
+
+-- Vérification des demandes en attente faite avant chaque insertion
+CREATE INDEX idx_deletion_request_pending_user ON account_deletion_request (user_id, status);
@@ -0,0 +1,9 @@
+-- Équivalent H2 de db/migration/postgresql/V9__job_lock.sql
+CREATE TABLE job_lock (
+    name         VARCHAR(64)  PRIMARY KEY,
+    locked_until TIMESTAMP(6) NOT NULL,
+    locked_by    VARCHAR(64)  NOT NULL
+);
+
+INSERT INTO job_lock (name, locked_until, locked_by)
+VALUES ('notification-retention', TIMESTAMP '1970-01-01 00:00:00', '');
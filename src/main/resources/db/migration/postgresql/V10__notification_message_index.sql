@@ -0,0 +1,5 @@
+-- Notifications par contenu : reprise de message_id (message_id IS NULL), suppression des contenus qui ne sont
+-- plus référencés et vérification de la clé étrangère fk_notification_message à chaque suppression d'un contenu.
+-- CONCURRENTLY : pas de verrou d'écriture pendant la construction (migration exécutée hors transaction).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notification_message
+    ON notification (message_id);
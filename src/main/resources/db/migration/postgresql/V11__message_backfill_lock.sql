@@ -0,0 +1,4 @@
+-- Verrou de la reprise de message_id (NotificationMessageBackfillService), exécutée par une seule instance
+INSERT INTO job_lock (name, locked_until, locked_by)
+VALUES ('notification-message-backfill', TIMESTAMP '1970-01-01 00:00:00', '')
+ON CONFLICT (name) DO NOTHING;
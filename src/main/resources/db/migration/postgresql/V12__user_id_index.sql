@@ -0,0 +1,5 @@
+-- Purge par tranches (user_id = ? AND id <= ? ORDER BY id LIMIT n) et borne haute MAX(id) d'une purge :
+-- sans cet index, chaque tranche reparcourt toutes les notifications de l'utilisateur.
+-- CONCURRENTLY : pas de verrou d'écriture pendant la construction (migration exécutée hors transaction).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notification_user_id
+    ON notification (user_id, id);
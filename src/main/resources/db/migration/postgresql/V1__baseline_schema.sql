@@ -0,0 +1,18 @@
+-- Schéma initial, identique à celui créé jusqu'ici par hibernate.ddl-auto=update.
+-- Sur une base existante, spring.flyway.baseline-on-migrate marque cette version comme appliquée.
+CREATE TABLE IF NOT EXISTS notification (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    BIGINT,
+    title      VARCHAR(255),
+    message    VARCHAR(255),
+    read       BOOLEAN NOT NULL,
+    created_at TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS account_deletion_request (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id      BIGINT,
+    user_email   VARCHAR(255),
+    request_time TIMESTAMP(6),
+    status       SMALLINT CHECK (status BETWEEN 0 AND 2)
+);
@@ -0,0 +1,15 @@
+-- Index des lectures chaudes. CONCURRENTLY évite de bloquer les écritures sur une table déjà volumineuse
+-- (Flyway exécute alors cette migration hors transaction).
+
+-- findByUserId, deleteByUserId et la pagination par keyset
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notification_user_created
+    ON notification (user_id, created_at DESC, id DESC);
+
+-- findByUserIdAndReadFalse : index partiel limité aux lignes non lues
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notification_user_unread
+    ON notification (user_id, created_at DESC)
+    WHERE read = false;
+
+-- findByStatus, trié par ancienneté de la demande
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_deletion_request_status_time
+    ON account_deletion_request (status, request_time);
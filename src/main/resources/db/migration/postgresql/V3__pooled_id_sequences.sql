@@ -0,0 +1,12 @@
+-- Passage des IDs d'IDENTITY à des séquences (optimiseur pooled de Hibernate, allocationSize = 50).
+-- INCREMENT BY doit rester égal à allocationSize.
+CREATE SEQUENCE IF NOT EXISTS notification_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS account_deletion_request_seq INCREMENT BY 50;
+
+-- Le premier bloc alloué par Hibernate commence au-dessus des IDs existants
+SELECT setval('notification_seq', COALESCE((SELECT MAX(id) FROM notification), 0) + 50);
+SELECT setval('account_deletion_request_seq', COALESCE((SELECT MAX(id) FROM account_deletion_request), 0) + 50);
+
+-- Une seule source d'IDs : les colonnes ne génèrent plus de valeur par elles-mêmes
+ALTER TABLE notification ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE account_deletion_request ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,4 @@
+-- Export des notifications par plage de dates, parcourues dans l'ordre (created_at, id).
+-- CONCURRENTLY : pas de verrou d'écriture pendant la construction (migration exécutée hors transaction).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notification_created
+    ON notification (created_at, id);
@@ -0,0 +1,28 @@
+-- Purge des notifications après approbation d'une suppression de compte : point de reprise sur la demande.
+-- purge_max_id borne la purge (fixée au premier lot), purged_count et purge_completed_at sont mis à jour
+-- dans la même transaction que chaque lot supprimé.
+ALTER TABLE account_deletion_request ADD COLUMN IF NOT EXISTS purge_max_id BIGINT;
+ALTER TABLE account_deletion_request ADD COLUMN IF NOT EXISTS purged_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE account_deletion_request ADD COLUMN IF NOT EXISTS purge_completed_at TIMESTAMP(6);
+
+-- Demandes approuvées (status = 1) dont la purge reste à faire
+CREATE INDEX IF NOT EXISTS idx_deletion_request_purge_pending
+    ON account_deletion_request (id)
+    WHERE status = 1 AND purge_completed_at IS NULL;
+
+-- Outbox transactionnelle : l'événement est écrit dans la même transaction que le changement d'état,
+-- puis publié sur Kafka par OutboxPublisher
+CREATE SEQUENCE IF NOT EXISTS outbox_event_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id           BIGINT PRIMARY KEY,
+    topic        VARCHAR(255) NOT NULL,
+    event_key    VARCHAR(255),
+    payload      TEXT         NOT NULL,
+    created_at   TIMESTAMP(6) NOT NULL,
+    published_at TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_event_unpublished
+    ON outbox_event (id)
+    WHERE published_at IS NULL;
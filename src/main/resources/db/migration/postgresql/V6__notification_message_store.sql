@@ -0,0 +1,31 @@
+-- Contenus de notifications (titre + message) stockés une seule fois, adressés par leur empreinte SHA-256
+-- (calculée par NotificationMessage.hashOf).
+--
+-- Migration en deux temps (expand/contract), sans réécrire ni verrouiller durablement la table notification :
+--   1. cette migration : nouvelle table et colonne message_id nullable (changement de métadonnées seulement),
+--      clé étrangère NOT VALID (vérifiée pour les nouvelles lignes uniquement). Les colonnes title et message
+--      restent écrites, les instances de la version précédente continuent de les lire ;
+--   2. hors Flyway : NotificationMessageBackfillService renseigne message_id par plages d'IDs, puis valide
+--      la clé étrangère (VALIDATE CONSTRAINT, sans bloquer les écritures) ;
+--   3. version suivante, une fois la reprise terminée : migration de contraction (message_id NOT NULL,
+--      suppression de title et message). L'espace des colonnes supprimées n'est rendu qu'au fil de la
+--      réécriture des lignes (ou par VACUUM FULL / pg_repack).
+
+-- N'attend pas derrière une transaction longue en bloquant toutes les requêtes mises en file après elle
+SET LOCAL lock_timeout = '5s';
+
+CREATE SEQUENCE IF NOT EXISTS notification_message_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS notification_message (
+    id         BIGINT PRIMARY KEY,
+    hash       CHAR(64)     NOT NULL,
+    title      VARCHAR(255),
+    message    VARCHAR(255),
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_notification_message_hash UNIQUE (hash)
+);
+
+ALTER TABLE notification ADD COLUMN IF NOT EXISTS message_id BIGINT;
+
+ALTER TABLE notification ADD CONSTRAINT fk_notification_message
+    FOREIGN KEY (message_id) REFERENCES notification_message (id) NOT VALID;
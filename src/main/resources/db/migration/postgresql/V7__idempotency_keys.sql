@@ -0,0 +1,9 @@
+-- Clés d'idempotence fournies par les producteurs (POST /notifications) ou dérivées de la position Kafka
+-- (demandes de suppression). Index uniques partiels : les lignes sans clé n'y figurent pas.
+ALTER TABLE notification ADD COLUMN idempotency_key VARCHAR(255);
+CREATE UNIQUE INDEX uk_notification_idempotency ON notification (user_id, idempotency_key)
+    WHERE idempotency_key IS NOT NULL;
+
+ALTER TABLE account_deletion_request ADD COLUMN idempotency_key VARCHAR(255);
+CREATE UNIQUE INDEX uk_deletion_request_idempotency ON account_deletion_request (idempotency_key)
+    WHERE idempotency_key IS NOT NULL;
@@ -0,0 +1,14 @@
+-- Au plus une demande de suppression en attente (status = 0) par utilisateur.
+-- Les doublons existants sont retirés ; la demande la plus ancienne de chaque utilisateur est conservée.
+DELETE FROM account_deletion_request r
+WHERE r.status = 0
+  AND EXISTS (SELECT 1
+              FROM account_deletion_request o
+              WHERE o.user_id = r.user_id
+                AND o.status = 0
+                AND o.id < r.id);
+
+-- Sert aussi la vérification des demandes en attente faite avant chaque insertion
+CREATE UNIQUE INDEX IF NOT EXISTS uk_deletion_request_pending_user
+    ON account_deletion_request (user_id)
+    WHERE status = 0;
@@ -0,0 +1,10 @@
+-- Verrous des traitements planifiés partagés entre les instances (bail : locked_until)
+CREATE TABLE IF NOT EXISTS job_lock (
+    name         VARCHAR(64)  PRIMARY KEY,
+    locked_until TIMESTAMP(6) NOT NULL,
+    locked_by    VARCHAR(64)  NOT NULL
+);
+
+INSERT INTO job_lock (name, locked_until, locked_by)
+VALUES ('notification-retention', TIMESTAMP '1970-01-01 00:00:00', '')
+ON CONFLICT (name) DO NOTHING;
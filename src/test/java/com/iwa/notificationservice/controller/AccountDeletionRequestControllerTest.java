@@ -2,8 +2,10 @@ package com.iwa.notificationservice.controller;
 
 import com.iwa.notificationservice.model.AccountDeletionRequest;
 import com.iwa.notificationservice.model.AccountDeletionRequest.RequestStatus;
+import com.iwa.notificationservice.security.AuthAuditLogger;
 import com.iwa.notificationservice.security.JwtTokenFilter;
 import com.iwa.notificationservice.security.JwtTokenUtil;
+import com.iwa.notificationservice.security.VerifiedTokenCache;
 import com.iwa.notificationservice.service.AccountDeletionRequestService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -31,7 +33,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @TestPropertySource(properties = {
         "security.jwt.secret=TestSecretKeyForJWT"
 })
-@Import({JwtTokenFilter.class})
+@Import({JwtTokenFilter.class, VerifiedTokenCache.class, AuthAuditLogger.class})
 public class AccountDeletionRequestControllerTest {
 
     @Autowired
@@ -1,8 +1,19 @@
 package com.iwa.notificationservice.controller;
 
+import com.iwa.notificationservice.config.SecurityConfig;
+import com.iwa.notificationservice.dto.JobStatus;
+import com.iwa.notificationservice.dto.NotificationPage;
+import com.iwa.notificationservice.dto.NotificationView;
 import com.iwa.notificationservice.model.Notification;
+import com.iwa.notificationservice.security.AuthAuditLogger;
+import com.iwa.notificationservice.security.JwtAuthenticatedUser;
 import com.iwa.notificationservice.security.JwtTokenFilter;
 import com.iwa.notificationservice.security.JwtTokenUtil;
+import com.iwa.notificationservice.security.VerifiedTokenCache;
+import com.iwa.notificationservice.service.JobRegistry;
+import com.iwa.notificationservice.service.NotificationBroadcastService;
+import com.iwa.notificationservice.service.NotificationExportService;
+import com.iwa.notificationservice.service.NotificationPurgeService;
 import com.iwa.notificationservice.service.NotificationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,12 +23,18 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -25,6 +42,7 @@ import java.util.Optional;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -32,7 +50,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @TestPropertySource(properties = {
         "security.jwt.secret=TestSecretKeyForJWT"
 })
-@Import({JwtTokenUtil.class, JwtTokenFilter.class})
+@Import({SecurityConfig.class, JwtTokenUtil.class, JwtTokenFilter.class, VerifiedTokenCache.class, AuthAuditLogger.class})
 public class NotificationControllerTest {
 
     @Autowired
@@ -41,6 +59,18 @@ public class NotificationControllerTest {
     @MockBean
     private NotificationService notificationService;
 
+    @MockBean
+    private NotificationExportService notificationExportService;
+
+    @MockBean
+    private NotificationPurgeService notificationPurgeService;
+
+    @MockBean
+    private NotificationBroadcastService notificationBroadcastService;
+
+    @MockBean
+    private JobRegistry jobRegistry;
+
     @Autowired
     private WebApplicationContext context;
 
@@ -69,6 +99,48 @@ public class NotificationControllerTest {
                 .andExpect(jsonPath("$.message").value("Test Message"));
     }
 
+    @Test
+    @WithMockUser
+    public void testCreateNotificationPassesIdempotencyKeyHeader() throws Exception {
+        when(notificationService.createNotification(any(Notification.class))).thenReturn(notification);
+
+        mockMvc.perform(post("/notifications")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":1,\"title\":\"Test Title\",\"message\":\"Test Message\"}"))
+                .andExpect(status().isOk());
+
+        Mockito.verify(notificationService).createNotification(
+                Mockito.argThat(created -> "retry-1".equals(created.getIdempotencyKey())));
+    }
+
+    @Test
+    @WithMockUser
+    public void testCreateNotificationRejectsBlankIdempotencyKey() throws Exception {
+        mockMvc.perform(post("/notifications")
+                        .header("Idempotency-Key", "")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":1,\"title\":\"Test Title\",\"message\":\"Test Message\"}"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verify(notificationService, Mockito.never()).createNotification(any());
+    }
+
+    @Test
+    @WithMockUser
+    public void testCreateNotificationsBatch() throws Exception {
+        Notification second = new Notification(2L, "Second Title", "Second Message");
+        when(notificationService.createNotifications(any())).thenReturn(List.of(notification, second));
+
+        mockMvc.perform(post("/notifications/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"userId\":1,\"title\":\"Test Title\",\"message\":\"Test Message\"},"
+                                + "{\"userId\":2,\"title\":\"Second Title\",\"message\":\"Second Message\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Test Title"))
+                .andExpect(jsonPath("$[1].title").value("Second Title"));
+    }
+
     @Test
     @WithMockUser
     public void testGetNotificationsByUserId() throws Exception {
@@ -79,7 +151,7 @@ public class NotificationControllerTest {
         Notification notification1 = new Notification(userId, "Test Title 1", "Test Message 1");
         Notification notification2 = new Notification(userId, "Test Title 2", "Test Message 2");
 
-        List<Notification> notifications = Arrays.asList(notification1, notification2);
+        List<NotificationView> notifications = Arrays.asList(NotificationView.of(notification1), NotificationView.of(notification2));
 
         // Mock du service pour retourner ces notifications
         Mockito.when(notificationService.getNotificationsByUserId(userId)).thenReturn(notifications);
@@ -97,6 +169,96 @@ public class NotificationControllerTest {
         Mockito.verify(notificationService).getNotificationsByUserId(userId);
     }
 
+    @Test
+    @WithMockUser
+    public void testGetNotificationsPageByUserId() throws Exception {
+        Long userId = 1L;
+        Notification notification1 = new Notification(userId, "Test Title 1", "Test Message 1");
+        NotificationPage page = new NotificationPage(List.of(NotificationView.of(notification1)), "next-cursor");
+
+        Mockito.when(notificationService.getNotificationsPage(userId, "cursor", 1)).thenReturn(page);
+
+        mockMvc.perform(get("/notifications/user/{userId}/page", userId)
+                        .param("cursor", "cursor")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").value("Test Title 1"))
+                .andExpect(jsonPath("$.nextCursor").value("next-cursor"));
+    }
+
+    @Test
+    @WithMockUser
+    public void testGetNotificationsPageByUserIdRejectsInvalidCursor() throws Exception {
+        Mockito.when(notificationService.getNotificationsPage(1L, "bad", 20))
+                .thenThrow(new IllegalArgumentException("Invalid cursor: bad"));
+
+        mockMvc.perform(get("/notifications/user/{userId}/page", 1L).param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    public void testGetNotificationsPageByUserIdRejectsOversizedPage() throws Exception {
+        mockMvc.perform(get("/notifications/user/{userId}/page", 1L).param("size", "1000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    public void testStreamNotificationsStartsAsyncEventStream() throws Exception {
+        when(notificationService.streamNotifications(1L, "last-id")).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/notifications/user/{userId}/stream", 1L)
+                        .header("Last-Event-ID", "last-id")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        Mockito.verify(notificationService).streamNotifications(1L, "last-id");
+    }
+
+    @Test
+    @WithMockUser
+    public void testExportNotificationsByUserIdStreamsNdjson() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(notificationExportService).exportByUserId(eq(1L), any());
+
+        MvcResult result = mockMvc.perform(get("/notifications/user/{userId}/export", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    @WithMockUser
+    public void testExportNotificationsByCreatedAtRequiresAdmin() throws Exception {
+        MockMvc securedMockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+        securedMockMvc.perform(get("/notifications/export")
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-02-01T00:00:00"))
+                .andExpect(status().isForbidden());
+
+        Mockito.verifyNoInteractions(notificationExportService);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testExportNotificationsByCreatedAtRejectsEmptyRange() throws Exception {
+        mockMvc.perform(get("/notifications/export")
+                        .param("from", "2024-02-01T00:00:00")
+                        .param("to", "2024-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(notificationExportService);
+    }
+
     @Test
     @WithMockUser
     public void testGetUnreadNotificationsByUserId() throws Exception {
@@ -107,7 +269,7 @@ public class NotificationControllerTest {
         Notification notification1 = new Notification(userId, "Unread Title 1", "Unread Message 1");
         Notification notification2 = new Notification(userId, "Unread Title 2", "Unread Message 2");
 
-        List<Notification> unreadNotifications = Arrays.asList(notification1, notification2);
+        List<NotificationView> unreadNotifications = Arrays.asList(NotificationView.of(notification1), NotificationView.of(notification2));
 
         // Mock du service pour retourner ces notifications
         Mockito.when(notificationService.getUnreadNotificationsByUserId(userId)).thenReturn(unreadNotifications);
@@ -125,6 +287,17 @@ public class NotificationControllerTest {
         Mockito.verify(notificationService).getUnreadNotificationsByUserId(userId);
     }
 
+    @Test
+    @WithMockUser
+    public void testGetUnreadCountByUserId() throws Exception {
+        when(notificationService.getUnreadCount(1L)).thenReturn(3L);
+
+        mockMvc.perform(get("/notifications/user/{userId}/unread/count", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(1))
+                .andExpect(jsonPath("$.count").value(3));
+    }
+
     @Test
     @WithMockUser
     public void testMarkNotificationAsRead() throws Exception {
@@ -143,6 +316,44 @@ public class NotificationControllerTest {
                 .andExpect(jsonPath("$.read").value(true));
     }
 
+    @Test
+    public void testMarkNotificationAsReadIsDeferredInWriteBehindMode() throws Exception {
+        when(notificationService.isReadBufferEnabled()).thenReturn(true);
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticatedUser(1L));
+        try {
+            mockMvc.perform(put("/notifications/5/read"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(content().string(""));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        Mockito.verify(notificationService).markAsReadDeferred(1L, 5L);
+        Mockito.verify(notificationService, Mockito.never()).markAsRead(5L);
+    }
+
+    @Test
+    @WithMockUser
+    public void testMarkAllAsRead() throws Exception {
+        when(notificationService.markAllAsRead(1L)).thenReturn(5);
+
+        mockMvc.perform(put("/notifications/user/{userId}/read-all", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(5));
+    }
+
+    @Test
+    @WithMockUser
+    public void testBulkMarkAsRead() throws Exception {
+        when(notificationService.markAsRead(1L, List.of(1L, 2L, 3L))).thenReturn(3);
+
+        mockMvc.perform(put("/notifications/user/{userId}/read", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1,2,3]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(3));
+    }
+
     @Test
     @WithMockUser
     public void testDeleteNotificationsByUserId() throws Exception {
@@ -156,4 +367,75 @@ public class NotificationControllerTest {
         // Vérifie que le service a été appelé avec le bon ID
         Mockito.verify(notificationService).deleteNotificationsByUserId(userId);
     }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testBroadcastToUserRangeReturnsJob() throws Exception {
+        JobStatus job = new JobStatus("job-2", "notification-broadcast", JobStatus.State.RUNNING, 0, null,
+                Instant.parse("2024-01-01T00:00:00Z"), null, null);
+        when(notificationBroadcastService.startBroadcast(any())).thenReturn(job);
+
+        mockMvc.perform(post("/notifications/broadcast")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Maintenance\",\"message\":\"Ce soir\",\"fromUserId\":1,\"toUserId\":500000}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/notifications/jobs/job-2"))
+                .andExpect(jsonPath("$.type").value("notification-broadcast"));
+    }
+
+    @Test
+    @WithMockUser
+    public void testBroadcastRequiresAdmin() throws Exception {
+        MockMvc securedMockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+        securedMockMvc.perform(post("/notifications/broadcast")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Maintenance\",\"message\":\"Ce soir\",\"fromUserId\":1,\"toUserId\":500000}"))
+                .andExpect(status().isForbidden());
+
+        Mockito.verifyNoInteractions(notificationBroadcastService);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testBroadcastWithoutRecipientsIsRejected() throws Exception {
+        mockMvc.perform(post("/notifications/broadcast")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Maintenance\",\"message\":\"Ce soir\"}"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verify(notificationBroadcastService, Mockito.never()).startBroadcast(any());
+    }
+
+    @Test
+    @WithMockUser
+    public void testDeleteNotificationsByUserIdAsyncReturnsJob() throws Exception {
+        JobStatus job = new JobStatus("job-1", "notification-purge", JobStatus.State.RUNNING, 0, null,
+                Instant.parse("2024-01-01T00:00:00Z"), null, null);
+        when(notificationPurgeService.startPurge(1L)).thenReturn(job);
+
+        mockMvc.perform(delete("/notifications/user/{userId}", 1L).param("async", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/notifications/jobs/job-1"))
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.state").value("RUNNING"));
+
+        Mockito.verify(notificationService, Mockito.never()).deleteNotificationsByUserId(any());
+    }
+
+    @Test
+    @WithMockUser
+    public void testGetJobStatus() throws Exception {
+        JobStatus job = new JobStatus("job-1", "notification-purge", JobStatus.State.COMPLETED, 1500, 1500L,
+                Instant.parse("2024-01-01T00:00:00Z"), Instant.parse("2024-01-01T00:00:05Z"), null);
+        when(jobRegistry.getStatus("job-1")).thenReturn(Optional.of(job));
+        when(jobRegistry.getStatus("unknown")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/notifications/jobs/{jobId}", "job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed").value(1500))
+                .andExpect(jsonPath("$.state").value("COMPLETED"));
+        mockMvc.perform(get("/notifications/jobs/{jobId}", "unknown"))
+                .andExpect(status().isNotFound());
+    }
 }
\ No newline at end of file
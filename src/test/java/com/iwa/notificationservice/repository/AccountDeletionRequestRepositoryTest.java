@@ -6,12 +6,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
@@ -50,6 +52,36 @@ class AccountDeletionRequestRepositoryTest {
         repository.save(request3);
     }
 
+    @Test
+    void testOnlyOnePendingRequestPerUser() {
+        AccountDeletionRequest duplicate = new AccountDeletionRequest();
+        duplicate.setUserId(1L);
+        duplicate.setUserEmail("user1@example.com");
+        duplicate.setRequestTime(LocalDateTime.now());
+        duplicate.setStatus(RequestStatus.PENDING);
+
+        assertThrows(DataIntegrityViolationException.class, () -> repository.saveAndFlush(duplicate));
+    }
+
+    @Test
+    void testDecidedRequestsDoNotBlockANewPendingRequest() {
+        AccountDeletionRequest again = new AccountDeletionRequest();
+        again.setUserId(2L);
+        again.setUserEmail("user2@example.com");
+        again.setRequestTime(LocalDateTime.now());
+        again.setStatus(RequestStatus.PENDING);
+        repository.saveAndFlush(again);
+
+        AccountDeletionRequest rejected = new AccountDeletionRequest();
+        rejected.setUserId(2L);
+        rejected.setUserEmail("user2@example.com");
+        rejected.setRequestTime(LocalDateTime.now());
+        rejected.setStatus(RequestStatus.REJECTED);
+        repository.saveAndFlush(rejected);
+
+        assertEquals(List.of(2L), repository.findUserIdsByStatusAndUserIdIn(RequestStatus.PENDING, List.of(2L)));
+    }
+
     @Test
     void testFindByStatus() {
         List<AccountDeletionRequest> pendingRequests = repository.findByStatus(RequestStatus.PENDING);
@@ -61,4 +93,13 @@ class AccountDeletionRequestRepositoryTest {
         assertEquals(1, approvedRequests.size());
         assertEquals("user2@example.com", approvedRequests.get(0).getUserEmail());
     }
+
+    @Test
+    void testFindUserIdsByStatus() {
+        List<Long> pendingUserIds = repository.findUserIdsByStatus(RequestStatus.PENDING);
+        assertEquals(2, pendingUserIds.size());
+        assertTrue(pendingUserIds.containsAll(List.of(1L, 3L)));
+
+        assertEquals(List.of(3L), repository.findUserIdsByStatusAndUserIdIn(RequestStatus.PENDING, List.of(2L, 3L, 4L)));
+    }
 }
\ No newline at end of file
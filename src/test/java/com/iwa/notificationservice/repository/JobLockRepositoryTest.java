@@ -0,0 +1,41 @@
+package com.iwa.notificationservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class JobLockRepositoryTest {
+
+    private static final String JOB = "notification-retention";
+
+    @Autowired
+    private JobLockRepository repository;
+
+    @Test
+    void testLockIsHeldByOneInstanceUntilReleased() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 2, 30);
+
+        assertEquals(1, repository.tryAcquire(JOB, "instance-a", now, now.plusHours(6)));
+        assertEquals(0, repository.tryAcquire(JOB, "instance-b", now.plusMinutes(1), now.plusHours(6)));
+        // Seul le détenteur libère le verrou
+        assertEquals(0, repository.release(JOB, "instance-b", now.plusMinutes(1)));
+
+        assertEquals(1, repository.release(JOB, "instance-a", now.plusMinutes(2)));
+        assertEquals(1, repository.tryAcquire(JOB, "instance-b", now.plusMinutes(3), now.plusHours(6)));
+    }
+
+    @Test
+    void testExpiredLockCanBeTakenOver() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 2, 30);
+        repository.tryAcquire(JOB, "instance-a", now, now.plusHours(6));
+
+        assertEquals(1, repository.tryAcquire(JOB, "instance-b", now.plusHours(7), now.plusHours(13)));
+    }
+}
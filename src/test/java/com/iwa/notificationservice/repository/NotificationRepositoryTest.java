@@ -1,14 +1,18 @@
 package com.iwa.notificationservice.repository;
 
+import com.iwa.notificationservice.dto.NotificationView;
 import com.iwa.notificationservice.model.Notification;
+import com.iwa.notificationservice.model.NotificationMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,6 +23,9 @@ class NotificationRepositoryTest {
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private NotificationMessageRepository messageRepository;
+
     private Notification notification1;
     private Notification notification2;
     private Notification notification3;
@@ -46,9 +53,9 @@ class NotificationRepositoryTest {
         notification3.setRead(false);
         notification3.setCreatedAt(LocalDateTime.now());
 
-        notificationRepository.save(notification1);
-        notificationRepository.save(notification2);
-        notificationRepository.save(notification3);
+        save(notification1);
+        save(notification2);
+        save(notification3);
     }
 
     @Test
@@ -66,6 +73,52 @@ class NotificationRepositoryTest {
         assertEquals("Title 1", unreadNotifications.get(0).getTitle());
     }
 
+    @Test
+    void testCountByUserIdAndReadFalse() {
+        assertEquals(1L, notificationRepository.countByUserIdAndReadFalse(1L));
+        assertEquals(1L, notificationRepository.countByUserIdAndReadFalse(2L));
+        assertEquals(0L, notificationRepository.countByUserIdAndReadFalse(99L));
+    }
+
+    @Test
+    void testMarkAllAsReadByUserId() {
+        int updated = notificationRepository.markAllAsReadByUserId(1L);
+
+        assertEquals(1, updated);
+        assertTrue(notificationRepository.findByUserIdAndReadFalse(1L).isEmpty());
+        assertEquals(1, notificationRepository.findByUserIdAndReadFalse(2L).size());
+    }
+
+    @Test
+    void testMarkAsReadByUserIdAndIdInIgnoresOtherUsers() {
+        int updated = notificationRepository.markAsReadByUserIdAndIdIn(
+                1L, List.of(notification1.getId(), notification2.getId(), notification3.getId()));
+
+        // notification2 est déjà lue et notification3 appartient à un autre utilisateur
+        assertEquals(1, updated);
+        assertTrue(notificationRepository.findByUserIdAndReadFalse(1L).isEmpty());
+        assertEquals(1, notificationRepository.findByUserIdAndReadFalse(2L).size());
+    }
+
+    @Test
+    void testMarkAsReadByIdOnlyCountsTheTransition() {
+        assertEquals(1, notificationRepository.markAsReadById(notification1.getId()));
+        assertEquals(0, notificationRepository.markAsReadById(notification1.getId()));
+        assertEquals(0, notificationRepository.markAsReadById(notification2.getId()));
+        assertTrue(notificationRepository.findById(notification1.getId()).orElseThrow().isRead());
+    }
+
+    @Test
+    void testFindWithContentByIdInReturnsOnlyRequestedNotifications() {
+        List<Notification> found = notificationRepository.findWithContentByIdIn(
+                List.of(notification3.getId(), notification1.getId()));
+
+        assertEquals(2, found.size());
+        assertTrue(found.stream().noneMatch(n -> n.getId().equals(notification2.getId())));
+        assertEquals(notification1.getTitle(), found.stream()
+                .filter(n -> n.getId().equals(notification1.getId())).findFirst().orElseThrow().getTitle());
+    }
+
     @Test
     void testDeleteByUserId() {
         notificationRepository.deleteByUserId(1L);
@@ -76,4 +129,176 @@ class NotificationRepositoryTest {
         List<Notification> remainingNotifications = notificationRepository.findByUserId(2L);
         assertEquals(1, remainingNotifications.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindViewsByUserIdReturnsProjections() {
+        List<NotificationView> views = notificationRepository.findViewsByUserId(1L);
+        assertEquals(2, views.size());
+        assertTrue(views.stream().anyMatch(v -> v.title().equals("Title 1") && !v.read()));
+
+        List<NotificationView> unreadViews = notificationRepository.findUnreadViewsByUserId(1L);
+        assertEquals(1, unreadViews.size());
+        assertEquals("Title 1", unreadViews.get(0).title());
+    }
+
+    @Test
+    void testChunkedDeleteStaysWithinIdRangeAndUser() {
+        Long maxId = notificationRepository.findMaxIdByUserId(1L);
+        List<Long> firstChunk = notificationRepository.findIdsByUserIdUpTo(1L, maxId, PageRequest.ofSize(1));
+        assertEquals(List.of(notification1.getId()), firstChunk);
+
+        int deleted = notificationRepository.deleteByUserIdAndIdBetween(1L, firstChunk.get(0), firstChunk.get(0));
+
+        assertEquals(1, deleted);
+        assertEquals(1, notificationRepository.countByUserId(1L));
+        assertEquals(1, notificationRepository.countByUserId(2L));
+    }
+
+    @Test
+    void testStreamByUserIdReturnsNotificationsInCreationOrder() {
+        try (Stream<Notification> notifications = notificationRepository.streamByUserId(1L)) {
+            assertEquals(List.of("Title 1", "Title 2"), notifications.map(Notification::getTitle).toList());
+        }
+    }
+
+    @Test
+    void testStreamByCreatedAtBetweenExcludesUpperBound() {
+        // Dates fixes : LocalDateTime.now() a une précision à la nanoseconde, la colonne à la microseconde
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < 3; i++) {
+            Notification notification = new Notification(3L, "Ranged " + i, "Message " + i);
+            notification.setCreatedAt(base.plusMinutes(i));
+            save(notification);
+        }
+
+        try (Stream<Notification> notifications = notificationRepository.streamByCreatedAtBetween(base, base.plusMinutes(2))) {
+            assertEquals(List.of("Ranged 0", "Ranged 1"), notifications.map(Notification::getTitle).toList());
+        }
+    }
+
+    @Test
+    void testKeysetPaginationWalksNotificationsNewestFirst() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < 5; i++) {
+            Notification notification = new Notification(3L, "Paged " + i, "Message " + i);
+            notification.setCreatedAt(base.plusMinutes(i));
+            save(notification);
+        }
+
+        List<NotificationView> firstPage = notificationRepository.findFirstPageByUserId(3L, PageRequest.ofSize(2));
+        assertEquals(List.of("Paged 4", "Paged 3"), firstPage.stream().map(NotificationView::title).toList());
+
+        NotificationView last = firstPage.get(1);
+        List<NotificationView> secondPage = notificationRepository.findPageByUserIdBefore(
+                3L, last.createdAt(), last.id(), PageRequest.ofSize(2));
+        assertEquals(List.of("Paged 2", "Paged 1"), secondPage.stream().map(NotificationView::title).toList());
+
+        last = secondPage.get(1);
+        List<NotificationView> thirdPage = notificationRepository.findPageByUserIdBefore(
+                3L, last.createdAt(), last.id(), PageRequest.ofSize(2));
+        assertEquals(List.of("Paged 0"), thirdPage.stream().map(NotificationView::title).toList());
+    }
+
+    @Test
+    void testDeleteReadBetweenKeepsUnreadAndRecentNotifications() {
+        LocalDateTime before = LocalDateTime.now().plusMinutes(1);
+        Long minId = notificationRepository.findMinId();
+        Long maxId = notificationRepository.findMaxIdCreatedBefore(before);
+
+        assertEquals(List.of(1L), notificationRepository.findUserIdsOfReadBetween(minId, maxId, before));
+        assertEquals(0, notificationRepository.deleteReadBetween(minId, maxId, notification2.getCreatedAt().minusSeconds(1)));
+        assertEquals(1, notificationRepository.deleteReadBetween(minId, maxId, before));
+
+        assertFalse(notificationRepository.existsById(notification2.getId()));
+        assertEquals(2, notificationRepository.count());
+    }
+
+    @Test
+    void testOverflowDeleteKeepsNewestNotificationsOfUser() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < 5; i++) {
+            Notification notification = new Notification(3L, "Kept " + i, "Message " + i);
+            notification.setCreatedAt(base.plusMinutes(i));
+            save(notification);
+        }
+        assertEquals(List.of(3L), notificationRepository.findUserIdsWithMoreThan(2));
+
+        NotificationView firstExcess = notificationRepository.findFirstPageByUserId(3L, PageRequest.of(2, 1)).get(0);
+        assertEquals("Kept 2", firstExcess.title());
+
+        List<Long> ids = notificationRepository.findIdsByUserIdUpToCursor(3L, firstExcess.createdAt(), firstExcess.id(),
+                PageRequest.ofSize(10));
+        int deleted = notificationRepository.deleteByUserIdAndIdBetweenUpToCursor(3L, ids.get(0), ids.get(ids.size() - 1),
+                firstExcess.createdAt(), firstExcess.id());
+
+        assertEquals(3, deleted);
+        assertEquals(List.of("Kept 4", "Kept 3"), notificationRepository.findFirstPageByUserId(3L, PageRequest.ofSize(10))
+                .stream().map(NotificationView::title).toList());
+    }
+
+    @Test
+    void testIdenticalContentsAreStoredOnce() {
+        assertEquals(notification1.getContent().getId(), save(new Notification(4L, "Title 1", "Message 1")).getContent().getId());
+        assertEquals(3, messageRepository.count());
+
+        List<NotificationView> views = notificationRepository.findViewsByUserId(4L);
+        assertEquals("Title 1", views.get(0).title());
+        assertEquals("Message 1", views.get(0).message());
+    }
+
+    @Test
+    void testRowsWithoutContentAreReadFromOriginalColumnsUntilBackfilled() {
+        // Ligne écrite par une instance de la version précédente : titre et message seulement
+        Notification legacy = notificationRepository.save(new Notification(5L, "Legacy", "Body"));
+        assertTrue(notificationRepository.existsByContentIsNull());
+        assertEquals("Legacy", notificationRepository.findViewsByUserId(5L).get(0).title());
+
+        List<Notification> pending = notificationRepository.findWithoutContentBetween(legacy.getId(), legacy.getId());
+        assertEquals(List.of(legacy.getId()), pending.stream().map(Notification::getId).toList());
+        NotificationMessage content = messageRepository.saveAndFlush(new NotificationMessage("Legacy", "Body"));
+        assertEquals(1, notificationRepository.setContentWhereMissing(content, List.of(legacy.getId())));
+
+        assertFalse(notificationRepository.existsByContentIsNull());
+        assertEquals(content.getId(), notificationRepository.findById(legacy.getId()).orElseThrow().getContent().getId());
+        assertEquals("Body", notificationRepository.findViewsByUserId(5L).get(0).message());
+    }
+
+    @Test
+    void testOnlyUnreferencedContentsAreDeleted() {
+        notificationRepository.delete(notification3);
+
+        int deleted = messageRepository.deleteUnreferencedBetween(messageRepository.findMinId(),
+                messageRepository.findMaxId(), LocalDateTime.now().plusMinutes(1));
+
+        assertEquals(1, deleted);
+        assertTrue(messageRepository.findByHash(NotificationMessage.hashOf("Title 3", "Message 3")).isEmpty());
+        assertTrue(messageRepository.findByHash(NotificationMessage.hashOf("Title 1", "Message 1")).isPresent());
+    }
+
+    @Test
+    void testRecentUnreferencedContentsAreKept() {
+        notificationRepository.delete(notification3);
+
+        assertEquals(0, messageRepository.deleteUnreferencedBetween(messageRepository.findMinId(),
+                messageRepository.findMaxId(), LocalDateTime.now().minusDays(1)));
+    }
+
+    @Test
+    void testIdempotencyKeysAreLookedUpForTheGivenUsersOnly() {
+        notification1.setIdempotencyKey("retry-1");
+        notification3.setIdempotencyKey("retry-1");
+        notificationRepository.saveAll(List.of(notification1, notification3));
+
+        List<Notification> stored = notificationRepository.findByUserIdInAndIdempotencyKeyIn(List.of(1L), List.of("retry-1"));
+
+        assertEquals(List.of(notification1.getId()), stored.stream().map(Notification::getId).toList());
+    }
+
+    // Associe le contenu partagé comme le fait NotificationMessageStore, sans son cache
+    private Notification save(Notification notification) {
+        String hash = NotificationMessage.hashOf(notification.getTitle(), notification.getMessage());
+        notification.setContent(messageRepository.findByHash(hash)
+                .orElseGet(() -> messageRepository.save(new NotificationMessage(notification.getTitle(), notification.getMessage()))));
+        return notificationRepository.save(notification);
+    }
+}
@@ -0,0 +1,96 @@
+package com.iwa.notificationservice.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vérifie sur H2 (schéma créé par les migrations Flyway) que les recherches chaudes utilisent un index.
+ * Échoue si une modification de requête ou de migration les fait retomber sur un parcours complet de table.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void testFindByUserIdUsesIndex() {
+        assertUsesIndex("SELECT * FROM notification WHERE user_id = 1",
+                "IDX_NOTIFICATION_USER_");
+    }
+
+    @Test
+    void testFindByUserIdAndReadFalseUsesIndex() {
+        assertUsesIndex("SELECT * FROM notification WHERE user_id = 1 AND read = FALSE",
+                "IDX_NOTIFICATION_USER_");
+    }
+
+    // H2 ne tient pas compte de l'ORDER BY pour départager les index préfixés par user_id (V2 et V12) ;
+    // Postgres retient idx_notification_user_created, dont l'ordre évite le tri
+    @Test
+    void testKeysetPageUsesIndex() {
+        assertUsesIndex("SELECT * FROM notification WHERE user_id = 1"
+                        + " AND (created_at < TIMESTAMP '2024-01-01 00:00:00'"
+                        + " OR (created_at = TIMESTAMP '2024-01-01 00:00:00' AND id < 10))"
+                        + " ORDER BY created_at DESC, id DESC FETCH FIRST 21 ROWS ONLY",
+                "IDX_NOTIFICATION_USER_");
+    }
+
+    @Test
+    void testExportByCreatedAtUsesIndex() {
+        assertUsesIndex("SELECT * FROM notification"
+                        + " WHERE created_at >= TIMESTAMP '2024-01-01 00:00:00' AND created_at < TIMESTAMP '2024-01-02 00:00:00'"
+                        + " ORDER BY created_at, id",
+                "IDX_NOTIFICATION_CREATED");
+    }
+
+    @Test
+    void testRetentionUpperBoundUsesIndex() {
+        assertUsesIndex("SELECT MAX(id) FROM notification WHERE created_at < TIMESTAMP '2024-01-01 00:00:00'",
+                "IDX_NOTIFICATION_CREATED");
+    }
+
+    @Test
+    void testDeleteByUserIdUsesIndex() {
+        assertUsesIndex("DELETE FROM notification WHERE user_id = 1",
+                "IDX_NOTIFICATION_USER_");
+    }
+
+    @Test
+    void testPurgeChunkUsesIndex() {
+        assertUsesIndex("SELECT id FROM notification WHERE user_id = 1 AND id <= 5000 ORDER BY id FETCH FIRST 1000 ROWS ONLY",
+                "IDX_NOTIFICATION_USER_ID");
+    }
+
+    @Test
+    void testPurgeUpperBoundUsesIndex() {
+        assertUsesIndex("SELECT MAX(id) FROM notification WHERE user_id = 1",
+                "IDX_NOTIFICATION_USER_ID");
+    }
+
+    @Test
+    void testIdempotencyLookupUsesIndex() {
+        assertUsesIndex("SELECT * FROM notification WHERE user_id = 1 AND idempotency_key = 'retry-1'",
+                "UK_NOTIFICATION_IDEMPOTENCY");
+    }
+
+    @Test
+    void testFindByStatusUsesIndex() {
+        assertUsesIndex("SELECT * FROM account_deletion_request WHERE status = 0",
+                "IDX_DELETION_REQUEST_STATUS_TIME");
+    }
+
+    private void assertUsesIndex(String sql, String expectedIndex) {
+        String plan = String.valueOf(entityManager.createNativeQuery("EXPLAIN " + sql).getSingleResult())
+                .toUpperCase();
+        assertFalse(plan.contains("TABLESCAN"), () -> "Full table scan for: " + sql + "\n" + plan);
+        assertTrue(plan.contains(expectedIndex), () -> "Expected " + expectedIndex + " in plan:\n" + plan);
+    }
+}
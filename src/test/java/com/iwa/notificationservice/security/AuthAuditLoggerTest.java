@@ -0,0 +1,65 @@
+package com.iwa.notificationservice.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthAuditLoggerTest {
+
+    private Instant now;
+    private AuthAuditLogger auditLogger;
+
+    @BeforeEach
+    void setUp() {
+        now = Instant.parse("2024-01-01T00:00:00Z");
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneId.of("UTC");
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now;
+            }
+        };
+        auditLogger = new AuthAuditLogger(Duration.ofSeconds(10), clock);
+    }
+
+    @Test
+    void testInvalidTokenEventsAreSampledPerInterval() {
+        assertTrue(auditLogger.tryAcquireInvalidTokenSample());
+        assertFalse(auditLogger.tryAcquireInvalidTokenSample());
+
+        now = now.plusSeconds(9);
+        assertFalse(auditLogger.tryAcquireInvalidTokenSample());
+
+        now = now.plusSeconds(1);
+        assertTrue(auditLogger.tryAcquireInvalidTokenSample());
+    }
+
+    @Test
+    void testSuppressedInvalidTokensAreCountedAndReset() {
+        auditLogger.invalidToken("/notifications");
+        auditLogger.invalidToken("/notifications");
+        auditLogger.invalidToken("/notifications");
+
+        assertEquals(2, auditLogger.getSuppressedInvalidTokenCount());
+
+        now = now.plusSeconds(10);
+        auditLogger.invalidToken("/notifications");
+
+        assertEquals(0, auditLogger.getSuppressedInvalidTokenCount());
+    }
+}
@@ -0,0 +1,74 @@
+package com.iwa.notificationservice.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenUtilTest {
+
+    private static final String CURRENT_SECRET = "current-secret-current-secret-current-secret-current-secret-0001";
+    private static final String PREVIOUS_SECRET = "previous-secret-previous-secret-previous-secret-previous-secr-02";
+    private static final String OTHER_SECRET = "other-secret-other-secret-other-secret-other-secret-other-sec-003";
+
+    private JwtTokenUtil jwtTokenUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenUtil = newUtil(CURRENT_SECRET, PREVIOUS_SECRET);
+    }
+
+    @Test
+    void testVerifyReturnsClaimsForValidToken() {
+        String token = jwtTokenUtil.generateAccessToken(42L);
+
+        Optional<Claims> claims = jwtTokenUtil.verify(token);
+
+        assertTrue(claims.isPresent());
+        assertEquals(42L, jwtTokenUtil.getUserId(claims.get()));
+        assertTrue(jwtTokenUtil.validate(token));
+        assertEquals(42L, jwtTokenUtil.getUserId(token));
+    }
+
+    @Test
+    void testVerifyAcceptsTokenSignedWithPreviousSecret() {
+        String token = newUtil(PREVIOUS_SECRET, "").generateAccessToken(7L);
+
+        Optional<Claims> claims = jwtTokenUtil.verify(token);
+
+        assertTrue(claims.isPresent());
+        assertEquals(7L, jwtTokenUtil.getUserId(claims.get()));
+    }
+
+    @Test
+    void testVerifyRejectsTokenSignedWithUnknownSecret() {
+        String token = newUtil(OTHER_SECRET, "").generateAccessToken(7L);
+
+        assertTrue(jwtTokenUtil.verify(token).isEmpty());
+        assertFalse(jwtTokenUtil.validate(token));
+    }
+
+    @Test
+    void testVerifyRejectsMalformedToken() {
+        assertTrue(jwtTokenUtil.verify("not-a-jwt").isEmpty());
+    }
+
+    @Test
+    void testWeakSecretRejectsEveryToken() {
+        JwtTokenUtil weakUtil = newUtil("short", "");
+
+        assertTrue(weakUtil.verify(jwtTokenUtil.generateAccessToken(1L)).isEmpty());
+    }
+
+    private static JwtTokenUtil newUtil(String secret, String previousSecret) {
+        JwtTokenUtil util = new JwtTokenUtil();
+        ReflectionTestUtils.setField(util, "jwtSecret", secret);
+        ReflectionTestUtils.setField(util, "previousJwtSecret", previousSecret);
+        util.init();
+        return util;
+    }
+}
@@ -0,0 +1,115 @@
+package com.iwa.notificationservice.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private MutableClock clock;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        cache = new VerifiedTokenCache(3, Duration.ofMinutes(5), clock);
+    }
+
+    @Test
+    void testGetReturnsCachedUserIdAndCountsHits() {
+        cache.put("token-a", 1L, null);
+
+        assertEquals(1L, cache.get("token-a"));
+        assertNull(cache.get("token-b"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void testNonAsciiTokensDoNotCollide() {
+        cache.put("token-\u00e9", 1L, null);
+
+        assertNull(cache.get("token-\u00e8"));
+        assertEquals(1L, cache.get("token-\u00e9"));
+    }
+
+    @Test
+    void testEntryExpiresAfterTtl() {
+        cache.put("token-a", 1L, null);
+
+        clock.advance(Duration.ofMinutes(5));
+
+        assertNull(cache.get("token-a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testEntryNeverOutlivesTokenExpiration() {
+        Date tokenExpiration = Date.from(clock.instant().plusSeconds(30));
+        cache.put("token-a", 1L, tokenExpiration);
+
+        clock.advance(Duration.ofSeconds(31));
+
+        assertNull(cache.get("token-a"));
+    }
+
+    @Test
+    void testAlreadyExpiredTokenIsNotCached() {
+        cache.put("token-a", 1L, Date.from(clock.instant().minusSeconds(1)));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        for (int i = 0; i < 10; i++) {
+            cache.put("token-" + i, (long) i, null);
+        }
+
+        assertTrue(cache.size() <= 3);
+        assertTrue(cache.getEvictionCount() > 0);
+    }
+
+    @Test
+    void testZeroMaxSizeDisablesCache() {
+        VerifiedTokenCache disabled = new VerifiedTokenCache(0, Duration.ofMinutes(5), clock);
+        disabled.put("token-a", 1L, null);
+
+        assertNull(disabled.get("token-a"));
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.model.AccountDeletionRequest.RequestStatus;
+import com.iwa.notificationservice.repository.AccountDeletionRequestRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class AccountDeletionPurgeWorkerTest {
+
+    @InjectMocks
+    private AccountDeletionPurgeWorker worker;
+
+    @Mock
+    private AccountDeletionRequestRepository repository;
+
+    @Mock
+    private AccountDeletionRequestService accountDeletionRequestService;
+
+    @Mock
+    private JobRegistry jobRegistry;
+
+    @Mock
+    private JobRegistry.JobProgress progress;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(worker, "pauseBetweenChunks", Duration.ZERO);
+    }
+
+    @Test
+    void testPurgeRunsChunksUntilDone() {
+        when(accountDeletionRequestService.purgeNextChunk(eq(1L), anyInt())).thenReturn(1000, 250, 0);
+
+        worker.purge(1L, progress);
+
+        verify(progress).advance(1000);
+        verify(progress).advance(250);
+        verify(accountDeletionRequestService, times(3)).purgeNextChunk(eq(1L), anyInt());
+    }
+
+    @Test
+    void testRequestAlreadyQueuedIsNotSubmittedTwice() {
+        when(repository.findIdsToPurge(eq(RequestStatus.APPROVED), any())).thenReturn(List.of(1L, 2L));
+
+        // Le registre ne lance pas les jobs : les demandes restent en cours
+        worker.schedulePendingPurges();
+        worker.schedulePendingPurges();
+
+        verify(jobRegistry, times(2)).submit(eq(AccountDeletionPurgeWorker.JOB_TYPE), any());
+    }
+}
@@ -1,14 +1,29 @@
 package com.iwa.notificationservice.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.iwa.notificationservice.model.AccountDeletionRequest;
 import com.iwa.notificationservice.model.AccountDeletionRequest.RequestStatus;
+import com.iwa.notificationservice.model.OutboxEvent;
 import com.iwa.notificationservice.repository.AccountDeletionRequestRepository;
+import com.iwa.notificationservice.repository.NotificationRepository;
+import com.iwa.notificationservice.repository.OutboxEventRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -17,6 +32,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class AccountDeletionRequestServiceTest {
@@ -27,6 +43,30 @@ class AccountDeletionRequestServiceTest {
     @Mock
     private AccountDeletionRequestRepository repository;
 
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Spy
+    private ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Spy
+    private IdempotencyCache<Long> deletionRequestIdempotencyCache = new IdempotencyCache<>(100, Duration.ofMinutes(10));
+
+    @Spy
+    private PendingDeletionIndex pendingDeletionIndex = new PendingDeletionIndex();
+
+    @Mock
+    private PendingDeletionBroadcaster pendingDeletionBroadcaster;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private AccountDeletionRequest pendingRequest;
     private AccountDeletionRequest approvedRequest;
 
@@ -56,12 +96,190 @@ class AccountDeletionRequestServiceTest {
             assertEquals(100L, savedRequest.getUserId());
             assertEquals("user@example.com", savedRequest.getUserEmail());
             assertEquals(RequestStatus.PENDING, savedRequest.getStatus());
-            return null;
+            assertEquals("user-deletion-requests:0:7", savedRequest.getIdempotencyKey());
+            return savedRequest;
         }).when(repository).save(any(AccountDeletionRequest.class));
 
-        service.listenUserDeletionRequests("100");
+        service.listenUserDeletionRequests(record(0, 7L, "100"));
+
+        verify(repository, times(1)).save(any(AccountDeletionRequest.class));
+    }
+
+    @Test
+    void testListenUserDeletionRequestsIgnoresRedelivery() {
+        when(repository.save(any(AccountDeletionRequest.class))).thenReturn(pendingRequest);
+
+        service.listenUserDeletionRequests(record(0, 7L, "100"));
+        service.listenUserDeletionRequests(record(0, 7L, "100"));
 
         verify(repository, times(1)).save(any(AccountDeletionRequest.class));
+        // La seconde livraison est résolue en mémoire
+        verify(repository, times(1)).findExistingIdempotencyKeys(any());
+    }
+
+    @Test
+    void testListenUserDeletionRequestsIgnoresRecordAlreadyStored() {
+        when(repository.findExistingIdempotencyKeys(List.of("user-deletion-requests:0:7")))
+                .thenReturn(List.of("user-deletion-requests:0:7"));
+
+        service.listenUserDeletionRequests(record(0, 7L, "100"));
+
+        verify(repository, never()).save(any(AccountDeletionRequest.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testListenUserDeletionRequestsBatchDedupesAndSavesInOneCall() {
+        ArgumentCaptor<List<AccountDeletionRequest>> saved = ArgumentCaptor.forClass(List.class);
+
+        service.listenUserDeletionRequestsBatch(List.of(record(0, 1L, "100"), record(0, 2L, " 200 "),
+                record(0, 3L, "100"), record(0, 4L, "not-a-number"), record(0, 5L, "")));
+
+        verify(repository, times(1)).saveAll(saved.capture());
+        assertEquals(List.of(100L, 200L), saved.getValue().stream().map(AccountDeletionRequest::getUserId).toList());
+        assertEquals(List.of("user-deletion-requests:0:1", "user-deletion-requests:0:2"),
+                saved.getValue().stream().map(AccountDeletionRequest::getIdempotencyKey).toList());
+        assertTrue(saved.getValue().stream().allMatch(r -> r.getStatus() == RequestStatus.PENDING));
+        verify(repository, never()).save(any(AccountDeletionRequest.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testListenUserDeletionRequestsBatchSkipsRedeliveredRecords() {
+        when(repository.findExistingIdempotencyKeys(any())).thenReturn(List.of("user-deletion-requests:1:10"));
+        ArgumentCaptor<List<AccountDeletionRequest>> saved = ArgumentCaptor.forClass(List.class);
+
+        service.listenUserDeletionRequestsBatch(List.of(record(1, 10L, "100"), record(1, 11L, "200")));
+
+        verify(repository).saveAll(saved.capture());
+        assertEquals(List.of(200L), saved.getValue().stream().map(AccountDeletionRequest::getUserId).toList());
+    }
+
+    @Test
+    void testListenUserDeletionRequestsBatchSkipsWhenWholePollWasStored() {
+        when(repository.findExistingIdempotencyKeys(any())).thenReturn(List.of("user-deletion-requests:1:10"));
+
+        service.listenUserDeletionRequestsBatch(List.of(record(1, 10L, "100")));
+
+        verify(repository, never()).saveAll(any());
+    }
+
+    @Test
+    void testListenUserDeletionRequestsIsAbsorbedWhenUserAlreadyHasPendingRequest() {
+        pendingDeletionIndex.add(100L);
+
+        service.listenUserDeletionRequests(record(0, 8L, "100"));
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testListenUserDeletionRequestsChecksPendingRequestsOfOtherInstances() {
+        when(repository.findUserIdsByStatusAndUserIdIn(RequestStatus.PENDING, List.of(100L))).thenReturn(List.of(100L));
+
+        service.listenUserDeletionRequests(record(0, 8L, "100"));
+        service.listenUserDeletionRequests(record(0, 9L, "100"));
+
+        verify(repository, never()).save(any(AccountDeletionRequest.class));
+        verify(repository, times(1)).findUserIdsByStatusAndUserIdIn(any(), any());
+        assertTrue(pendingDeletionIndex.contains(100L));
+    }
+
+    @Test
+    void testListenUserDeletionRequestsReleasesUserWhenSaveFails() {
+        when(repository.save(any(AccountDeletionRequest.class))).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> service.listenUserDeletionRequests(record(0, 8L, "100")));
+
+        assertFalse(pendingDeletionIndex.contains(100L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testListenUserDeletionRequestsBatchCoalescesPendingUsers() {
+        pendingDeletionIndex.add(100L);
+        when(repository.findUserIdsByStatusAndUserIdIn(eq(RequestStatus.PENDING), any())).thenReturn(List.of(200L));
+        ArgumentCaptor<List<AccountDeletionRequest>> saved = ArgumentCaptor.forClass(List.class);
+
+        service.listenUserDeletionRequestsBatch(List.of(record(0, 1L, "100"), record(0, 2L, "200"),
+                record(0, 3L, "300")));
+
+        verify(repository).saveAll(saved.capture());
+        assertEquals(List.of(300L), saved.getValue().stream().map(AccountDeletionRequest::getUserId).toList());
+        assertTrue(pendingDeletionIndex.contains(200L));
+        assertTrue(pendingDeletionIndex.contains(300L));
+
+        // Nouvelle demande des mêmes utilisateurs : absorbée sans accès à la base
+        clearInvocations(repository);
+        service.listenUserDeletionRequestsBatch(List.of(record(0, 4L, "100"), record(0, 5L, "200"),
+                record(0, 6L, "300")));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testListenUserDeletionRequestsAbsorbsPendingRequestCreatedConcurrently() {
+        // Vérification faite avant qu'une autre instance insère la demande ; l'index unique partiel refuse la seconde
+        when(repository.findUserIdsByStatusAndUserIdIn(RequestStatus.PENDING, List.of(100L)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(100L));
+        when(repository.save(any(AccountDeletionRequest.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_deletion_request_pending_user"));
+
+        service.listenUserDeletionRequests(record(0, 8L, "100"));
+
+        assertTrue(pendingDeletionIndex.contains(100L));
+        assertNull(deletionRequestIdempotencyCache.get("user-deletion-requests:0:8"));
+    }
+
+    @Test
+    void testListenUserDeletionRequestsPropagatesUnexplainedConstraintViolation() {
+        when(repository.save(any(AccountDeletionRequest.class)))
+                .thenThrow(new DataIntegrityViolationException("not-null"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.listenUserDeletionRequests(record(0, 8L, "100")));
+
+        assertFalse(pendingDeletionIndex.contains(100L));
+    }
+
+    @Test
+    void testListenUserDeletionRequestsBatchRetriesPerUserAfterConcurrentPendingRequest() {
+        when(repository.saveAll(any())).thenThrow(new DataIntegrityViolationException("uk_deletion_request_pending_user"));
+        when(repository.save(any(AccountDeletionRequest.class))).thenAnswer(invocation -> {
+            AccountDeletionRequest request = invocation.getArgument(0);
+            if (request.getUserId() == 100L) {
+                throw new DataIntegrityViolationException("uk_deletion_request_pending_user");
+            }
+            request.setId(5L);
+            return request;
+        });
+        when(repository.findUserIdsByStatusAndUserIdIn(RequestStatus.PENDING, List.of(100L))).thenReturn(List.of(100L));
+
+        service.listenUserDeletionRequestsBatch(List.of(record(0, 1L, "100"), record(0, 2L, "200")));
+
+        verify(repository, times(2)).save(any(AccountDeletionRequest.class));
+        assertTrue(pendingDeletionIndex.contains(100L));
+        assertTrue(pendingDeletionIndex.contains(200L));
+        assertNotNull(deletionRequestIdempotencyCache.get("user-deletion-requests:0:2"));
+        assertNull(deletionRequestIdempotencyCache.get("user-deletion-requests:0:1"));
+    }
+
+    @Test
+    void testListenUserDeletionRequestsBatchSkipsEmptyBatch() {
+        service.listenUserDeletionRequestsBatch(List.of(record(0, 1L, "oops")));
+
+        verifyNoInteractions(repository);
+    }
+
+    private static ConsumerRecord<String, String> record(int partition, long offset, String value) {
+        return new ConsumerRecord<>("user-deletion-requests", partition, offset, null, value);
+    }
+
+    @Test
+    void testParseUserId() {
+        assertEquals(42L, AccountDeletionRequestService.parseUserId(" 42\n"));
+        assertNull(AccountDeletionRequestService.parseUserId("4 2"));
+        assertNull(AccountDeletionRequestService.parseUserId("   "));
+        assertNull(AccountDeletionRequestService.parseUserId(null));
     }
 
     @Test
@@ -78,51 +296,155 @@ class AccountDeletionRequestServiceTest {
 
     @Test
     void testApproveRequest() {
-        when(repository.findById(1L)).thenReturn(Optional.of(pendingRequest));
+        when(repository.findByIdForUpdate(1L)).thenReturn(Optional.of(pendingRequest));
         when(repository.save(any(AccountDeletionRequest.class))).thenReturn(pendingRequest);
 
         AccountDeletionRequest approved = service.approveRequest(1L);
 
         assertNotNull(approved);
         assertEquals(RequestStatus.APPROVED, approved.getStatus());
-        verify(repository, times(1)).findById(1L);
+        verify(repository, times(1)).findByIdForUpdate(1L);
         verify(repository, times(1)).save(pendingRequest);
     }
 
+    @Test
+    void testApproveRequestReleasesPendingUser() {
+        pendingDeletionIndex.add(100L);
+        when(repository.findByIdForUpdate(1L)).thenReturn(Optional.of(pendingRequest));
+
+        service.approveRequest(1L);
+
+        assertFalse(pendingDeletionIndex.contains(100L));
+        verify(pendingDeletionBroadcaster).broadcast(100L);
+    }
+
+    @Test
+    void testListenUserDeletionRequestsRechecksExpiredPendingUser() {
+        ReflectionTestUtils.setField(pendingDeletionIndex, "ttl", Duration.ZERO);
+        pendingDeletionIndex.confirmAll(List.of(100L));
+        when(repository.save(any(AccountDeletionRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // L'entrée a expiré : la base, où la demande a été décidée entre-temps, fait foi
+        service.listenUserDeletionRequests(record(0, 8L, "100"));
+
+        verify(repository).findUserIdsByStatusAndUserIdIn(RequestStatus.PENDING, List.of(100L));
+        verify(repository).save(any(AccountDeletionRequest.class));
+    }
+
+    @Test
+    void testRejectingAnAlreadyDecidedRequestKeepsPendingUser() {
+        pendingDeletionIndex.add(200L);
+        when(repository.findByIdForUpdate(2L)).thenReturn(Optional.of(approvedRequest));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> service.rejectRequest(2L));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        assertEquals(RequestStatus.APPROVED, approvedRequest.getStatus());
+        assertTrue(pendingDeletionIndex.contains(200L));
+        verify(repository, never()).save(any(AccountDeletionRequest.class));
+    }
+
+    @Test
+    void testApprovingAnApprovedRequestDoesNotWriteASecondEvent() {
+        when(repository.findByIdForUpdate(2L)).thenReturn(Optional.of(approvedRequest));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> service.approveRequest(2L));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(repository, never()).save(any(AccountDeletionRequest.class));
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    void testApprovingARejectedRequestDoesNotTriggerThePurge() {
+        pendingRequest.setStatus(RequestStatus.REJECTED);
+        when(repository.findByIdForUpdate(1L)).thenReturn(Optional.of(pendingRequest));
+
+        assertThrows(ResponseStatusException.class, () -> service.approveRequest(1L));
+
+        assertEquals(RequestStatus.REJECTED, pendingRequest.getStatus());
+        verifyNoInteractions(outboxEventRepository);
+        verify(pendingDeletionBroadcaster, never()).broadcast(anyLong());
+    }
+
+    @Test
+    void testApproveRequestWritesDeletionApprovedEventToOutbox() throws Exception {
+        when(repository.findByIdForUpdate(1L)).thenReturn(Optional.of(pendingRequest));
+
+        service.approveRequest(1L);
+
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(captor.capture());
+        OutboxEvent event = captor.getValue();
+        assertEquals("user-deletion-approved", event.getTopic());
+        assertEquals("100", event.getEventKey());
+        assertEquals(1L, objectMapper.readTree(event.getPayload()).get("requestId").asLong());
+        assertEquals(100L, objectMapper.readTree(event.getPayload()).get("userId").asLong());
+    }
+
+    @Test
+    void testPurgeNextChunkSetsBoundOnceAndCheckpointsProgress() {
+        pendingRequest.setStatus(RequestStatus.APPROVED);
+        when(repository.findByIdForUpdate(1L)).thenReturn(Optional.of(pendingRequest));
+        when(notificationRepository.findMaxIdByUserId(100L)).thenReturn(5000L);
+        when(notificationService.deleteNotificationsChunk(100L, 5000L, 1000)).thenReturn(1000, 400, 0);
+
+        assertEquals(1000, service.purgeNextChunk(1L, 1000));
+        assertEquals(400, service.purgeNextChunk(1L, 1000));
+        assertNull(pendingRequest.getPurgeCompletedAt());
+        assertEquals(0, service.purgeNextChunk(1L, 1000));
+
+        assertEquals(5000L, pendingRequest.getPurgeMaxId());
+        assertEquals(1400, pendingRequest.getPurgedCount());
+        assertNotNull(pendingRequest.getPurgeCompletedAt());
+        verify(notificationRepository, times(1)).findMaxIdByUserId(100L);
+        verify(repository, times(3)).save(pendingRequest);
+    }
+
+    @Test
+    void testPurgeNextChunkIgnoresRequestsThatAreNotApproved() {
+        when(repository.findByIdForUpdate(1L)).thenReturn(Optional.of(pendingRequest));
+
+        assertEquals(0, service.purgeNextChunk(1L, 1000));
+        verifyNoInteractions(notificationService);
+    }
+
     @Test
     void testApproveRequestThrowsExceptionWhenNotFound() {
-        when(repository.findById(anyLong())).thenReturn(Optional.empty());
+        when(repository.findByIdForUpdate(anyLong())).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             service.approveRequest(999L);
         });
 
         assertEquals("Request not found", exception.getMessage());
-        verify(repository, times(1)).findById(999L);
+        verify(repository, times(1)).findByIdForUpdate(999L);
     }
 
     @Test
     void testRejectRequest() {
-        when(repository.findById(1L)).thenReturn(Optional.of(pendingRequest));
+        when(repository.findByIdForUpdate(1L)).thenReturn(Optional.of(pendingRequest));
         when(repository.save(any(AccountDeletionRequest.class))).thenReturn(pendingRequest);
 
         AccountDeletionRequest rejected = service.rejectRequest(1L);
 
         assertNotNull(rejected);
         assertEquals(RequestStatus.REJECTED, rejected.getStatus());
-        verify(repository, times(1)).findById(1L);
+        verify(repository, times(1)).findByIdForUpdate(1L);
         verify(repository, times(1)).save(pendingRequest);
     }
 
     @Test
     void testRejectRequestThrowsExceptionWhenNotFound() {
-        when(repository.findById(anyLong())).thenReturn(Optional.empty());
+        when(repository.findByIdForUpdate(anyLong())).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             service.rejectRequest(999L);
         });
 
         assertEquals("Request not found", exception.getMessage());
-        verify(repository, times(1)).findById(999L);
+        verify(repository, times(1)).findByIdForUpdate(999L);
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.iwa.notificationservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyCacheTest {
+
+    private Instant now;
+    private Clock clock;
+
+    @BeforeEach
+    void setUp() {
+        now = Instant.parse("2024-01-01T00:00:00Z");
+        clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneId.of("UTC");
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now;
+            }
+        };
+    }
+
+    @Test
+    void testKeysAreRememberedUntilTheyExpire() {
+        IdempotencyCache<Long> cache = new IdempotencyCache<>(10, Duration.ofMinutes(10), clock);
+
+        assertNull(cache.get("a"));
+        cache.put("a", 1L);
+        assertEquals(1L, cache.get("a"));
+        assertEquals(1, cache.getHitCount());
+
+        now = now.plus(Duration.ofMinutes(10));
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testFullCacheDropsExpiredEntriesFirst() {
+        IdempotencyCache<Long> cache = new IdempotencyCache<>(3, Duration.ofMinutes(10), clock);
+        cache.put("old", 1L);
+        now = now.plus(Duration.ofMinutes(6));
+        cache.put("b", 2L);
+        cache.put("c", 3L);
+        now = now.plus(Duration.ofMinutes(5));
+
+        cache.put("d", 4L);
+
+        assertNull(cache.get("old"));
+        assertEquals(2L, cache.get("b"));
+        assertEquals(3L, cache.get("c"));
+        assertEquals(4L, cache.get("d"));
+    }
+
+    @Test
+    void testSizeStaysBounded() {
+        IdempotencyCache<Long> cache = new IdempotencyCache<>(20, Duration.ofMinutes(10), clock);
+
+        for (long i = 0; i < 100; i++) {
+            cache.put("key-" + i, i);
+        }
+
+        assertTrue(cache.size() <= 20);
+        assertEquals(99L, cache.get("key-99"));
+    }
+
+    @Test
+    void testZeroSizeDisablesTheCache() {
+        IdempotencyCache<Long> cache = new IdempotencyCache<>(0, Duration.ofMinutes(10), clock);
+
+        cache.put("a", 1L);
+
+        assertNull(cache.get("a"));
+    }
+}
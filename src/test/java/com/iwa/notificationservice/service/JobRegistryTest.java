@@ -0,0 +1,68 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.dto.JobStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobRegistryTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void testCompletedJobReportsProgress() {
+        JobRegistry registry = new JobRegistry(Runnable::run, Duration.ofHours(1), CLOCK);
+
+        JobStatus submitted = registry.submit("test", progress -> {
+            progress.setTotal(3);
+            progress.advance(2);
+            progress.advance(1);
+        });
+
+        JobStatus status = registry.getStatus(submitted.id()).orElseThrow();
+        assertEquals(JobStatus.State.COMPLETED, status.state());
+        assertEquals(3, status.processed());
+        assertEquals(3L, status.total());
+        assertNull(status.error());
+    }
+
+    @Test
+    void testFailedJobKeepsErrorAndPartialProgress() {
+        JobRegistry registry = new JobRegistry(Runnable::run, Duration.ofHours(1), CLOCK);
+
+        JobStatus submitted = registry.submit("test", progress -> {
+            progress.advance(5);
+            throw new IllegalStateException("database unavailable");
+        });
+
+        JobStatus status = registry.getStatus(submitted.id()).orElseThrow();
+        assertEquals(JobStatus.State.FAILED, status.state());
+        assertEquals(5, status.processed());
+        assertEquals("database unavailable", status.error());
+    }
+
+    @Test
+    void testQueuedJobIsRunning() {
+        JobRegistry registry = new JobRegistry(task -> { }, Duration.ofHours(1), CLOCK);
+
+        JobStatus submitted = registry.submit("test", progress -> { });
+
+        assertEquals(JobStatus.State.RUNNING, submitted.state());
+        assertEquals(JobStatus.State.RUNNING, registry.getStatus(submitted.id()).orElseThrow().state());
+    }
+
+    @Test
+    void testFinishedJobsAreForgottenAfterRetention() {
+        JobRegistry registry = new JobRegistry(Runnable::run, Duration.ZERO.minusSeconds(1), CLOCK);
+        JobStatus submitted = registry.submit("test", progress -> { });
+
+        registry.removeExpiredJobs();
+
+        assertTrue(registry.getStatus(submitted.id()).isEmpty());
+    }
+}
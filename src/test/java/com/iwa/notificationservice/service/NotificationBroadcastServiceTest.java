@@ -0,0 +1,74 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.dto.BroadcastRequest;
+import com.iwa.notificationservice.model.Notification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class NotificationBroadcastServiceTest {
+
+    @InjectMocks
+    private NotificationBroadcastService broadcastService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private JobRegistry jobRegistry;
+
+    @Mock
+    private JobRegistry.JobProgress progress;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(broadcastService, "chunkSize", 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRangeIsInsertedInChunks() {
+        broadcastService.broadcast(new BroadcastRequest("Title", "Message", null, 10L, 14L), progress);
+
+        ArgumentCaptor<List<Notification>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(notificationService, times(3)).createNotifications(chunks.capture());
+        assertEquals(List.of(2, 2, 1), chunks.getAllValues().stream().map(List::size).toList());
+        assertEquals(14L, chunks.getAllValues().get(2).get(0).getUserId());
+        assertEquals("Title", chunks.getAllValues().get(0).get(0).getTitle());
+        verify(progress).setTotal(5);
+        verify(progress, times(2)).advance(2);
+        verify(progress).advance(1);
+    }
+
+    @Test
+    void testDuplicateUserIdsReceiveOneNotification() {
+        broadcastService.broadcast(new BroadcastRequest("Title", "Message", List.of(1L, 2L, 1L), null, null), progress);
+
+        verify(progress).setTotal(2);
+        verify(notificationService, times(1)).createNotifications(anyList());
+    }
+
+    @Test
+    void testRequestValidation() {
+        assertTrue(new BroadcastRequest("T", "M", List.of(1L), null, null).isValid(10));
+        assertTrue(new BroadcastRequest("T", "M", null, 1L, 10L).isValid(10));
+        assertFalse(new BroadcastRequest("T", "M", null, 1L, 11L).isValid(10));
+        assertFalse(new BroadcastRequest("T", "M", List.of(1L), 1L, 2L).isValid(10));
+        assertFalse(new BroadcastRequest("T", "M", List.of(), null, null).isValid(10));
+        assertFalse(new BroadcastRequest(null, "M", List.of(1L), null, null).isValid(10));
+        assertFalse(new BroadcastRequest("T", "M", Arrays.asList(1L, null), null, null).isValid(10));
+        // L'écart dépasse Long.MAX_VALUE : ne doit pas passer pour une petite plage
+        assertFalse(new BroadcastRequest("T", "M", null, Long.MIN_VALUE, Long.MAX_VALUE).isValid(10));
+    }
+}
@@ -0,0 +1,89 @@
+package com.iwa.notificationservice.service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NotificationCacheBroadcasterTest {
+
+    @InjectMocks
+    private NotificationCacheBroadcaster broadcaster;
+
+    @Mock
+    private NotificationListCache notificationListCache;
+
+    @Mock
+    private UnreadCounterStore unreadCounterStore;
+
+    @Mock
+    private KafkaTemplate<Object, Object> kafkaTemplate;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(broadcaster, "topic", "notification-cache-invalidation");
+    }
+
+    @Test
+    void testInvalidationFromAnotherInstanceIsApplied() {
+        broadcaster.listenCacheInvalidation(new ConsumerRecord<>("notification-cache-invalidation", 0, 0L, "other-instance", "42"));
+
+        verify(notificationListCache).invalidate(42L);
+        verify(unreadCounterStore).evict(42L);
+    }
+
+    @Test
+    void testUsersAreBatchedIntoFewRecords() {
+        when(kafkaTemplate.send(anyString(), any(), any())).thenReturn(new CompletableFuture<>());
+        List<Long> userIds = LongStream.rangeClosed(1, 2500).boxed().toList();
+
+        broadcaster.broadcast(userIds);
+
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate, times(3)).send(eq("notification-cache-invalidation"),
+                eq(NotificationCacheBroadcaster.INSTANCE_ID), payloads.capture());
+        assertEquals(1000, payloads.getAllValues().get(0).toString().split(",").length);
+        assertTrue(payloads.getAllValues().get(2).toString().endsWith(",2500"));
+    }
+
+    @Test
+    void testBatchedInvalidationFromAnotherInstanceIsApplied() {
+        broadcaster.listenCacheInvalidation(new ConsumerRecord<>("notification-cache-invalidation", 0, 0L, "other-instance", "42,43"));
+
+        verify(notificationListCache).invalidate(42L);
+        verify(notificationListCache).invalidate(43L);
+        verify(unreadCounterStore).evict(43L);
+    }
+
+    @Test
+    void testOwnInvalidationIsIgnored() {
+        broadcaster.listenCacheInvalidation(new ConsumerRecord<>("notification-cache-invalidation", 0, 0L,
+                NotificationCacheBroadcaster.INSTANCE_ID, "42"));
+
+        verifyNoInteractions(notificationListCache, unreadCounterStore);
+    }
+
+    @Test
+    void testMalformedEventIsIgnored() {
+        broadcaster.listenCacheInvalidation(new ConsumerRecord<>("notification-cache-invalidation", 0, 0L, "other-instance", "abc"));
+
+        verifyNoInteractions(notificationListCache);
+    }
+}
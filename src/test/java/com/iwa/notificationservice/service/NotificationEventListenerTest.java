@@ -0,0 +1,108 @@
+package com.iwa.notificationservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iwa.notificationservice.model.Notification;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class NotificationEventListenerTest {
+
+    @InjectMocks
+    private NotificationEventListener listener;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testValidEventsAreInsertedInOneBatch() {
+        List<ConsumerRecord<String, String>> records = List.of(
+                record(0, "{\"userId\":1,\"title\":\"Title 1\",\"message\":\"Message 1\"}"),
+                record(1, "{\"u\":2,\"t\":\"Title 2\",\"m\":\"Message 2\"}"));
+        ArgumentCaptor<List<Notification>> saved = ArgumentCaptor.forClass(List.class);
+
+        listener.listenNotificationEvents(records);
+
+        verify(notificationService, times(1)).createNotifications(saved.capture());
+        assertEquals(List.of(1L, 2L), saved.getValue().stream().map(Notification::getUserId).toList());
+        assertEquals("Title 2", saved.getValue().get(1).getTitle());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMalformedMessageIsReportedByIndexAfterSavingThePrecedingOnes() {
+        List<ConsumerRecord<String, String>> records = List.of(
+                record(0, "{\"userId\":1,\"title\":\"Title 1\",\"message\":\"Message 1\"}"),
+                record(1, "not json"),
+                record(2, "{\"userId\":2,\"title\":\"Title 2\",\"message\":\"Message 2\"}"));
+        ArgumentCaptor<List<Notification>> saved = ArgumentCaptor.forClass(List.class);
+
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class,
+                () -> listener.listenNotificationEvents(records));
+
+        assertEquals(1, e.getIndex());
+        verify(notificationService).createNotifications(saved.capture());
+        assertEquals(List.of(1L), saved.getValue().stream().map(Notification::getUserId).toList());
+    }
+
+    @Test
+    void testLeadingMalformedMessageInsertsNothing() {
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class,
+                () -> listener.listenNotificationEvents(List.of(record(0, null), record(1, "{\"title\":\"No user\"}"))));
+
+        assertEquals(0, e.getIndex());
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRowRejectedByTheDatabaseIsIsolated() {
+        List<ConsumerRecord<String, String>> records = List.of(
+                record(0, "{\"userId\":1,\"title\":\"Title 1\",\"message\":\"Message 1\"}"),
+                record(1, "{\"userId\":2,\"title\":\"Too long\",\"message\":\"Message 2\"}"),
+                record(2, "{\"userId\":3,\"title\":\"Title 3\",\"message\":\"Message 3\"}"));
+        when(notificationService.createNotifications(anyList())).thenAnswer(invocation -> {
+            List<Notification> notifications = invocation.getArgument(0);
+            if (notifications.stream().anyMatch(n -> n.getUserId() == 2L)) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            return notifications;
+        });
+
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class,
+                () -> listener.listenNotificationEvents(records));
+
+        assertEquals(1, e.getIndex());
+        ArgumentCaptor<List<Notification>> saved = ArgumentCaptor.forClass(List.class);
+        // Le batch complet, puis les lignes une à une jusqu'à la ligne refusée
+        verify(notificationService, times(3)).createNotifications(saved.capture());
+        assertEquals(List.of(1L), saved.getAllValues().get(1).stream().map(Notification::getUserId).toList());
+    }
+
+    private static ConsumerRecord<String, String> record(long offset, String value) {
+        return new ConsumerRecord<>("notification-events", 0, offset, null, value);
+    }
+}
@@ -0,0 +1,81 @@
+package com.iwa.notificationservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.iwa.notificationservice.model.Notification;
+import com.iwa.notificationservice.repository.NotificationRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class NotificationExportServiceTest {
+
+    @InjectMocks
+    private NotificationExportService exportService;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testExportByUserIdWritesOneJsonObjectPerLineAndClosesStream() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Notification> rows = Stream.of(notification(1L, "First"), notification(2L, "Second"))
+                .onClose(() -> closed.set(true));
+        when(notificationRepository.streamByUserId(100L)).thenReturn(rows);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = exportService.exportByUserId(100L, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, exported);
+        assertEquals(2, lines.length);
+        assertEquals("First", objectMapper.readTree(lines[0]).get("title").asText());
+        assertEquals("Second", objectMapper.readTree(lines[1]).get("title").asText());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void testExportClearsPersistenceContextPerFetchBatch() throws Exception {
+        int rows = NotificationRepository.EXPORT_FETCH_SIZE * 2 + 1;
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(notificationRepository.streamByCreatedAtBetween(from, to))
+                .thenReturn(LongStream.rangeClosed(1, rows).mapToObj(id -> notification(id, "Title " + id)));
+
+        long exported = exportService.exportByCreatedAt(from, to, new ByteArrayOutputStream());
+
+        assertEquals(rows, exported);
+        verify(entityManager, times(2)).clear();
+    }
+
+    private static Notification notification(Long id, String title) {
+        Notification notification = new Notification(100L, title, "Message");
+        notification.setId(id);
+        return notification;
+    }
+}
@@ -0,0 +1,90 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.dto.NotificationView;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationListCacheTest {
+
+    @Test
+    void testListsAreCachedPerUserAndUnreadFlag() {
+        NotificationListCache cache = new NotificationListCache(10, 1000, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, false, () -> load(loads, 3));
+        cache.get(1L, false, () -> load(loads, 3));
+        cache.get(1L, true, () -> load(loads, 1));
+
+        assertEquals(2, loads.get());
+        assertEquals(2, cache.size());
+        assertEquals(4, cache.getWeight());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void testInvalidateRemovesBothListsOfTheUserOnly() {
+        NotificationListCache cache = new NotificationListCache(10, 1000, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, false, () -> load(loads, 3));
+        cache.get(1L, true, () -> load(loads, 1));
+        cache.get(2L, false, () -> load(loads, 2));
+
+        cache.invalidate(1L);
+
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getWeight());
+    }
+
+    @Test
+    void testListLoadedDuringInvalidationIsNotCached() {
+        NotificationListCache cache = new NotificationListCache(10, 1000, Duration.ofMinutes(5));
+
+        cache.get(1L, false, () -> {
+            cache.invalidate(1L);
+            return List.of(new NotificationView(1L, 1L, "stale", "stale", false, null));
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testWeightIsBounded() {
+        NotificationListCache cache = new NotificationListCache(100, 10, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+
+        for (long userId = 1; userId <= 10; userId++) {
+            cache.get(userId, false, () -> load(loads, 4));
+        }
+        // Une liste plus lourde que le cache entier n'est jamais retenue
+        cache.get(11L, false, () -> load(loads, 11));
+
+        assertTrue(cache.getWeight() <= 10);
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        NotificationListCache cache = new NotificationListCache(3, 1000, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+
+        for (long userId = 1; userId <= 10; userId++) {
+            cache.get(userId, true, () -> load(loads, 1));
+        }
+
+        assertTrue(cache.size() <= 3);
+    }
+
+    private static List<NotificationView> load(AtomicInteger loads, int size) {
+        loads.incrementAndGet();
+        List<NotificationView> notifications = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            notifications.add(new NotificationView((long) i, 1L, "Title " + i, "Message " + i, false, null));
+        }
+        return notifications;
+    }
+}
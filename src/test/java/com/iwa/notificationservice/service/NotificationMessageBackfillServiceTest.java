@@ -0,0 +1,143 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.model.Notification;
+import com.iwa.notificationservice.model.NotificationMessage;
+import com.iwa.notificationservice.repository.JobLockRepository;
+import com.iwa.notificationservice.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NotificationMessageBackfillServiceTest {
+
+    @InjectMocks
+    private NotificationMessageBackfillService backfillService;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationMessageStore notificationMessageStore;
+
+    @Mock
+    private JobLockRepository jobLockRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(backfillService, "batchSize", 1000);
+        ReflectionTestUtils.setField(backfillService, "pauseBetweenBatches", Duration.ZERO);
+        ReflectionTestUtils.setField(backfillService, "lockDuration", Duration.ofHours(6));
+        when(jobLockRepository.tryAcquire(eq(NotificationMessageBackfillService.JOB_TYPE), any(), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void testRangeIsUpdatedWithOneStatementPerContent() {
+        NotificationMessage hello = new NotificationMessage("Hello", "World");
+        NotificationMessage bye = new NotificationMessage("Bye", "World");
+        Notification first = legacyNotification(1L, "Hello", "World");
+        Notification second = legacyNotification(2L, "Bye", "World");
+        Notification third = legacyNotification(3L, "Hello", "World");
+        when(notificationRepository.findWithoutContentBetween(1L, 1000L)).thenReturn(List.of(first, second, third));
+        doAnswer(invocation -> {
+            Collection<Notification> notifications = invocation.getArgument(0);
+            notifications.forEach(n -> n.setContent("Hello".equals(n.getTitle()) ? hello : bye));
+            return null;
+        }).when(notificationMessageStore).resolveAll(any());
+        when(notificationRepository.setContentWhereMissing(hello, List.of(1L, 3L))).thenReturn(2);
+        when(notificationRepository.setContentWhereMissing(bye, List.of(2L))).thenReturn(1);
+
+        assertEquals(3, backfillService.backfillBetween(1L, 1000L));
+        verify(notificationRepository, times(2)).setContentWhereMissing(any(), any());
+    }
+
+    @Test
+    void testRangeWithDeletedContentIsRetriedOnNextPass() {
+        NotificationMessage content = new NotificationMessage("Hello", "World");
+        Notification notification = legacyNotification(1L, "Hello", "World");
+        when(notificationRepository.findWithoutContentBetween(1L, 1000L)).thenReturn(List.of(notification));
+        doAnswer(invocation -> {
+            notification.setContent(content);
+            return null;
+        }).when(notificationMessageStore).resolveAll(any());
+        when(notificationRepository.setContentWhereMissing(any(), any()))
+                .thenThrow(new DataIntegrityViolationException("fk_notification_message"));
+
+        assertEquals(0, backfillService.backfillBetween(1L, 1000L));
+        verify(notificationMessageStore).forget(List.of(notification));
+    }
+
+    @Test
+    void testBackfillWalksFromFirstRowWithoutContent() throws InterruptedException {
+        when(notificationRepository.findMinIdWithoutContent()).thenReturn(500L);
+        when(notificationRepository.findMaxId()).thenReturn(2000L);
+
+        assertEquals(0, backfillService.backfill());
+        verify(notificationRepository).findWithoutContentBetween(500L, 1499L);
+        verify(notificationRepository).findWithoutContentBetween(1500L, 2000L);
+    }
+
+    @Test
+    void testForeignKeyIsValidatedOnceEveryRowHasContent() {
+        when(notificationRepository.existsByContentIsNull()).thenReturn(false);
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<String>>any())).thenReturn("PostgreSQL");
+
+        backfillService.scheduleBackfill();
+        backfillService.scheduleBackfill();
+
+        verify(jdbcTemplate).execute("ALTER TABLE notification VALIDATE CONSTRAINT fk_notification_message");
+        // Reprise terminée : les passes suivantes ne prennent plus le verrou
+        verify(jobLockRepository, times(1)).tryAcquire(any(), any(), any(), any());
+        verify(jobLockRepository).release(eq(NotificationMessageBackfillService.JOB_TYPE),
+                eq(NotificationCacheBroadcaster.INSTANCE_ID), any());
+    }
+
+    @Test
+    void testForeignKeyIsNotValidatedWhileRowsRemain() {
+        when(notificationRepository.existsByContentIsNull()).thenReturn(true);
+
+        backfillService.scheduleBackfill();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testPassIsSkippedWhenAnotherInstanceHoldsTheLock() {
+        when(jobLockRepository.tryAcquire(eq(NotificationMessageBackfillService.JOB_TYPE), any(), any(), any())).thenReturn(0);
+
+        backfillService.scheduleBackfill();
+
+        verify(notificationRepository, never()).findWithoutContentBetween(anyLong(), anyLong());
+        verify(jobLockRepository, never()).release(any(), any(), any());
+    }
+
+    private static Notification legacyNotification(Long id, String title, String message) {
+        Notification notification = new Notification(100L, title, message);
+        notification.setId(id);
+        return notification;
+    }
+}
@@ -0,0 +1,128 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.model.Notification;
+import com.iwa.notificationservice.model.NotificationMessage;
+import com.iwa.notificationservice.repository.NotificationMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class NotificationMessageStoreTest {
+
+    @InjectMocks
+    private NotificationMessageStore store;
+
+    @Mock
+    private NotificationMessageRepository messageRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testRepeatedContentIsServedFromCache() {
+        NotificationMessage saved = new NotificationMessage("Title", "Message");
+        when(messageRepository.findByHashIn(any())).thenReturn(List.of());
+        when(messageRepository.saveAllAndFlush(anyList())).thenReturn(List.of(saved));
+        Notification first = new Notification(1L, "Title", "Message");
+        Notification second = new Notification(2L, "Title", "Message");
+
+        store.resolve(first);
+        store.resolve(second);
+
+        assertSame(saved, first.getContent());
+        assertSame(saved, second.getContent());
+        verify(messageRepository, times(1)).saveAllAndFlush(anyList());
+        assertEquals(1, store.getHitCount());
+        assertEquals(1, store.getMissCount());
+    }
+
+    @Test
+    void testBatchIsResolvedWithOneLookupAndOneInsert() {
+        NotificationMessage existing = new NotificationMessage("Hello", "Alice");
+        NotificationMessage created = new NotificationMessage("Hello", "Bob");
+        when(messageRepository.findByHashIn(any())).thenReturn(List.of(existing));
+        when(messageRepository.saveAllAndFlush(anyList())).thenReturn(List.of(created));
+        Notification alice = new Notification(1L, "Hello", "Alice");
+        Notification bob = new Notification(2L, "Hello", "Bob");
+        Notification bobAgain = new Notification(3L, "Hello", "Bob");
+
+        store.resolveAll(List.of(alice, bob, bobAgain));
+
+        assertSame(existing, alice.getContent());
+        assertSame(created, bob.getContent());
+        assertSame(created, bobAgain.getContent());
+        verify(messageRepository, times(1)).findByHashIn(Set.of(existing.getHash(), created.getHash()));
+        verify(messageRepository, times(1)).saveAllAndFlush(
+                ArgumentMatchers.<List<NotificationMessage>>argThat(contents -> contents.size() == 1));
+    }
+
+    @Test
+    void testConcurrentCreationFallsBackToExistingContent() {
+        NotificationMessage existing = new NotificationMessage("Title", "Message");
+        when(messageRepository.findByHashIn(any())).thenReturn(List.of()).thenReturn(List.of(existing));
+        when(messageRepository.saveAllAndFlush(anyList()))
+                .thenThrow(new DataIntegrityViolationException("uk_notification_message_hash"))
+                .thenReturn(List.of());
+        Notification notification = new Notification(1L, "Title", "Message");
+
+        store.resolve(notification);
+
+        assertSame(existing, notification.getContent());
+    }
+
+    @Test
+    void testResolveKeepsAlreadyResolvedContent() {
+        NotificationMessage content = new NotificationMessage("Title", "Message");
+        Notification notification = new Notification(1L, "Title", "Message");
+        notification.setContent(content);
+
+        store.resolve(notification);
+
+        assertSame(content, notification.getContent());
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void testForgottenContentIsLookedUpAgain() {
+        NotificationMessage deleted = new NotificationMessage("Title", "Message");
+        NotificationMessage recreated = new NotificationMessage("Title", "Message");
+        when(messageRepository.findByHashIn(any())).thenReturn(List.of(deleted)).thenReturn(List.of());
+        when(messageRepository.saveAllAndFlush(anyList())).thenReturn(List.of(recreated));
+        Notification notification = new Notification(1L, "Title", "Message");
+        store.resolve(notification);
+
+        store.forget(List.of(notification));
+        assertNull(notification.getContent());
+        assertEquals("Title", notification.getTitle());
+        store.resolve(notification);
+
+        assertSame(recreated, notification.getContent());
+        assertEquals(2, store.getMissCount());
+    }
+
+    @Test
+    void testHashDistinguishesFieldBoundariesAndNulls() {
+        assertNotEquals(NotificationMessage.hashOf("ab", "c"), NotificationMessage.hashOf("a", "bc"));
+        assertNotEquals(NotificationMessage.hashOf(null, "x"), NotificationMessage.hashOf("", "x"));
+        assertNotEquals(NotificationMessage.hashOf("x", null), NotificationMessage.hashOf("x", ""));
+        assertEquals(64, NotificationMessage.hashOf("Title", "Message").length());
+    }
+}
@@ -0,0 +1,58 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class NotificationPurgeServiceTest {
+
+    @InjectMocks
+    private NotificationPurgeService purgeService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private JobRegistry jobRegistry;
+
+    @Mock
+    private JobRegistry.JobProgress progress;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testPurgeDeletesChunksUpToMaxIdAndReportsProgress() {
+        when(notificationRepository.findMaxIdByUserId(100L)).thenReturn(2500L);
+        when(notificationRepository.countByUserId(100L)).thenReturn(2500L);
+        when(notificationService.deleteNotificationsChunk(eq(100L), eq(2500L), anyInt())).thenReturn(1000, 1000, 500, 0);
+
+        purgeService.purge(100L, progress);
+
+        verify(progress).setTotal(2500L);
+        verify(progress, times(2)).advance(1000);
+        verify(progress).advance(500);
+        verify(notificationService, times(4)).deleteNotificationsChunk(eq(100L), eq(2500L), anyInt());
+    }
+
+    @Test
+    void testPurgeWithoutNotificationsDoesNothing() {
+        when(notificationRepository.findMaxIdByUserId(100L)).thenReturn(null);
+
+        purgeService.purge(100L, progress);
+
+        verify(progress).setTotal(0);
+        verifyNoInteractions(notificationService);
+    }
+}
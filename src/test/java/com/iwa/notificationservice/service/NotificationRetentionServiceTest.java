@@ -0,0 +1,157 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.dto.NotificationCursor;
+import com.iwa.notificationservice.dto.NotificationView;
+import com.iwa.notificationservice.repository.JobLockRepository;
+import com.iwa.notificationservice.repository.NotificationMessageRepository;
+import com.iwa.notificationservice.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class NotificationRetentionServiceTest {
+
+    @InjectMocks
+    private NotificationRetentionService retentionService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private JobRegistry jobRegistry;
+
+    @Mock
+    private JobLockRepository jobLockRepository;
+
+    @Mock
+    private NotificationMessageRepository messageRepository;
+
+    @Mock
+    private JobRegistry.JobProgress progress;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(retentionService, "batchSize", 1000);
+        ReflectionTestUtils.setField(retentionService, "pauseBetweenBatches", Duration.ZERO);
+        ReflectionTestUtils.setField(retentionService, "lockDuration", Duration.ofHours(6));
+        ReflectionTestUtils.setField(retentionService, "unreferencedMessageMinAge", Duration.ofDays(1));
+        when(jobLockRepository.tryAcquire(eq(NotificationRetentionService.JOB_TYPE), any(), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void testExpiredReadNotificationsAreDeletedByIdRange() throws InterruptedException {
+        LocalDateTime before = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(notificationRepository.findMinId()).thenReturn(1L);
+        when(notificationRepository.findMaxIdCreatedBefore(before)).thenReturn(2500L);
+        when(notificationService.deleteReadNotificationsBetween(anyLong(), anyLong(), eq(before))).thenReturn(400, 0, 100);
+
+        long deleted = retentionService.deleteExpiredReadNotifications(before, progress);
+
+        assertEquals(500, deleted);
+        verify(notificationService).deleteReadNotificationsBetween(1L, 1000L, before);
+        verify(notificationService).deleteReadNotificationsBetween(1001L, 2000L, before);
+        verify(notificationService).deleteReadNotificationsBetween(2001L, 2500L, before);
+        verify(progress).advance(400);
+        verify(progress).advance(100);
+    }
+
+    @Test
+    void testNothingIsDeletedWhenNoNotificationIsOldEnough() throws InterruptedException {
+        when(notificationRepository.findMinId()).thenReturn(1L);
+        when(notificationRepository.findMaxIdCreatedBefore(any())).thenReturn(null);
+
+        assertEquals(0, retentionService.deleteExpiredReadNotifications(LocalDateTime.now(), progress));
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void testOverflowDeletesFromFirstExcessNotification() throws InterruptedException {
+        ReflectionTestUtils.setField(retentionService, "maxPerUser", 2);
+        NotificationView firstExcess = new NotificationView(7L, 100L, "Title", "Message", true,
+                LocalDateTime.of(2024, 1, 1, 0, 0));
+        when(notificationRepository.findUserIdsWithMoreThan(2)).thenReturn(List.of(100L));
+        when(notificationRepository.findFirstPageByUserId(100L, PageRequest.of(2, 1))).thenReturn(List.of(firstExcess));
+        when(notificationService.deleteNotificationsUpToCursor(eq(100L), eq(NotificationCursor.of(firstExcess)), anyInt()))
+                .thenReturn(1000, 3, 0);
+
+        assertEquals(1003, retentionService.deleteOverflowNotifications(progress));
+        verify(progress).advance(1000);
+        verify(progress).advance(3);
+    }
+
+    @Test
+    void testUnreferencedMessagesAreDeletedByIdRange() throws InterruptedException {
+        LocalDateTime before = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(messageRepository.findMinId()).thenReturn(1L);
+        when(messageRepository.findMaxId()).thenReturn(1500L);
+        when(messageRepository.deleteUnreferencedBetween(anyLong(), anyLong(), eq(before))).thenReturn(20, 5);
+
+        assertEquals(25, retentionService.deleteUnreferencedMessages(before));
+        verify(messageRepository).deleteUnreferencedBetween(1L, 1000L, before);
+        verify(messageRepository).deleteUnreferencedBetween(1001L, 1500L, before);
+    }
+
+    @Test
+    void testMessageRangeReferencedConcurrentlyIsSkipped() throws InterruptedException {
+        LocalDateTime before = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(messageRepository.findMinId()).thenReturn(1L);
+        when(messageRepository.findMaxId()).thenReturn(1500L);
+        when(messageRepository.deleteUnreferencedBetween(anyLong(), anyLong(), eq(before)))
+                .thenThrow(new DataIntegrityViolationException("fk_notification_message"))
+                .thenReturn(5);
+
+        assertEquals(5, retentionService.deleteUnreferencedMessages(before));
+        verify(messageRepository).deleteUnreferencedBetween(1001L, 1500L, before);
+    }
+
+    @Test
+    void testOverlappingRunIsSkipped() {
+        retentionService.scheduleRetention();
+        retentionService.scheduleRetention();
+
+        // Le registre ne lance pas le job : la première passe est toujours en cours
+        verify(jobRegistry, times(1)).submit(eq(NotificationRetentionService.JOB_TYPE), any());
+    }
+
+    @Test
+    void testRunIsSkippedWhenAnotherInstanceHoldsTheLock() {
+        when(jobLockRepository.tryAcquire(eq(NotificationRetentionService.JOB_TYPE), any(), any(), any())).thenReturn(0);
+
+        retentionService.scheduleRetention();
+
+        verify(jobRegistry, never()).submit(any(), any());
+    }
+
+    @Test
+    void testLockIsReleasedWhenThePassEnds() throws Exception {
+        when(jobRegistry.submit(eq(NotificationRetentionService.JOB_TYPE), any())).thenAnswer(invocation -> {
+            JobRegistry.JobWork work = invocation.getArgument(1);
+            work.run(progress);
+            return null;
+        });
+
+        retentionService.scheduleRetention();
+
+        verify(jobLockRepository).release(eq(NotificationRetentionService.JOB_TYPE),
+                eq(NotificationCacheBroadcaster.INSTANCE_ID), any());
+    }
+}
@@ -0,0 +1,104 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.config.IdempotencyConfig;
+import com.iwa.notificationservice.model.Notification;
+import com.iwa.notificationservice.repository.NotificationMessageRepository;
+import com.iwa.notificationservice.repository.NotificationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+// Deux lots réels sur la même clé d'idempotence : chaque lot valide sa propre transaction
+@DataJpaTest
+@Import({NotificationService.class, NotificationMessageStore.class, IdempotencyConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationServiceIdempotencyRaceTest {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationMessageRepository messageRepository;
+
+    @MockBean
+    private UnreadCounterStore unreadCounterStore;
+
+    @MockBean
+    private NotificationStreamRegistry streamRegistry;
+
+    @MockBean
+    private NotificationListCache notificationListCache;
+
+    @MockBean
+    private NotificationCacheBroadcaster cacheBroadcaster;
+
+    @MockBean
+    private NotificationStreamBroadcaster streamBroadcaster;
+
+    @MockBean
+    private ReadMarkBuffer readMarkBuffer;
+
+    @AfterEach
+    void tearDown() {
+        useRepository(notificationRepository);
+        notificationRepository.deleteAll();
+        messageRepository.deleteAll();
+    }
+
+    @Test
+    void testBatchRacingAnotherBatchOnTheSameKeyIsNotRolledBack() {
+        AtomicBoolean raced = new AtomicBoolean();
+        NotificationRepository racingRepository = mock(NotificationRepository.class,
+                AdditionalAnswers.delegatesTo(notificationRepository));
+        doAnswer(invocation -> {
+            List<Notification> known = notificationRepository.findByUserIdInAndIdempotencyKeyIn(
+                    invocation.getArgument(0), invocation.getArgument(1));
+            // Entre la lecture des clés et l'insertion de ce lot, un autre lot insère et valide la même clé
+            if (raced.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(() -> notificationService.createNotifications(
+                        List.of(keyed(1L, "order-42", "Concurrent")))).join();
+            }
+            return known;
+        }).when(racingRepository).findByUserIdInAndIdempotencyKeyIn(any(), any());
+        useRepository(racingRepository);
+
+        List<Notification> created = notificationService.createNotifications(
+                List.of(keyed(1L, "order-42", "First"), keyed(2L, "order-42", "Other user")));
+
+        // La clé déjà prise renvoie la notification du lot concurrent ; le reste du lot est inséré
+        assertEquals(List.of("Concurrent", "Other user"), created.stream().map(Notification::getTitle).toList());
+        assertEquals(2, notificationRepository.count());
+        assertEquals(1, notificationRepository.findByUserIdAndIdempotencyKey(2L, "order-42").stream().count());
+    }
+
+    private void useRepository(NotificationRepository repository) {
+        NotificationService target = AopTestUtils.getTargetObject(notificationService);
+        ReflectionTestUtils.setField(target, "notificationRepository", repository);
+    }
+
+    private static Notification keyed(Long userId, String idempotencyKey, String title) {
+        Notification notification = new Notification(userId, title, "Message");
+        notification.setIdempotencyKey(idempotencyKey);
+        return notification;
+    }
+}
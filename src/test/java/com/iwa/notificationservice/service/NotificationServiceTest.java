@@ -1,20 +1,35 @@
 package com.iwa.notificationservice.service;
 
+import com.iwa.notificationservice.dto.NotificationCursor;
+import com.iwa.notificationservice.dto.NotificationPage;
+import com.iwa.notificationservice.dto.NotificationView;
 import com.iwa.notificationservice.model.Notification;
 import com.iwa.notificationservice.repository.NotificationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class NotificationServiceTest {
@@ -25,6 +40,36 @@ class NotificationServiceTest {
     @Mock
     private NotificationRepository notificationRepository;
 
+    @Spy
+    private UnreadCounterStore unreadCounterStore = new UnreadCounterStore(1000);
+
+    @Mock
+    private NotificationStreamRegistry streamRegistry;
+
+    @Mock
+    private NotificationStreamRegistry.Subscription subscription;
+
+    @Spy
+    private NotificationListCache notificationListCache = new NotificationListCache(100, 10_000, Duration.ofMinutes(5));
+
+    @Mock
+    private NotificationCacheBroadcaster cacheBroadcaster;
+
+    @Mock
+    private NotificationStreamBroadcaster streamBroadcaster;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ReadMarkBuffer readMarkBuffer = new ReadMarkBuffer(100);
+
+    @Mock
+    private NotificationMessageStore notificationMessageStore;
+
+    @Spy
+    private IdempotencyCache<Long> notificationIdempotencyCache = new IdempotencyCache<>(100, Duration.ofMinutes(10));
+
     private Notification notification1;
     private Notification notification2;
 
@@ -56,42 +101,440 @@ class NotificationServiceTest {
         assertNotNull(createdNotification);
         assertEquals(notification1.getId(), createdNotification.getId());
         assertEquals(notification1.getTitle(), createdNotification.getTitle());
+        verify(notificationMessageStore).resolve(notification1);
         verify(notificationRepository, times(1)).save(notification1);
+        verify(streamRegistry, times(1)).publish(notification1);
+        verify(streamBroadcaster).broadcast(List.of(notification1));
+    }
+
+    @Test
+    void testCreateNotificationsSavesAllInOneCall() {
+        when(notificationRepository.countByUserIdAndReadFalse(100L)).thenReturn(0L);
+        when(notificationRepository.saveAll(List.of(notification1, notification2)))
+                .thenReturn(List.of(notification1, notification2));
+        notificationService.getUnreadCount(100L);
+
+        List<Notification> created = notificationService.createNotifications(List.of(notification1, notification2));
+
+        assertEquals(2, created.size());
+        assertEquals(2L, notificationService.getUnreadCount(100L));
+        verify(notificationRepository, never()).save(any(Notification.class));
+        // Contenus résolus en un seul appel, avant la transaction d'insertion
+        InOrder order = inOrder(notificationMessageStore, transactionManager);
+        order.verify(notificationMessageStore).resolveAll(List.of(notification1, notification2));
+        order.verify(transactionManager).getTransaction(any());
+    }
+
+    @Test
+    void testCreateNotificationWithSameIdempotencyKeyIsReloadedById() {
+        notification1.setIdempotencyKey("retry-1");
+        when(notificationRepository.save(any(Notification.class))).thenReturn(notification1);
+        Notification current = new Notification(100L, "Notification 1", "This is the first notification.");
+        current.setId(1L);
+        current.setRead(true);
+        when(notificationRepository.findById(1L)).thenReturn(Optional.of(current));
+
+        notificationService.createNotification(notification1);
+        Notification retry = new Notification(100L, "Notification 1", "This is the first notification.");
+        retry.setIdempotencyKey("retry-1");
+        Notification second = notificationService.createNotification(retry);
+
+        // L'état actuel (lue depuis) est renvoyé, pas l'instance mémorisée à la création
+        assertSame(current, second);
+        verify(notificationRepository, times(1)).save(any(Notification.class));
+        verify(notificationRepository, times(1)).findByUserIdAndIdempotencyKey(100L, "retry-1");
+    }
+
+    @Test
+    void testCreateNotificationReturnsStoredNotificationForKnownKey() {
+        notification1.setIdempotencyKey("retry-1");
+        when(notificationRepository.findByUserIdAndIdempotencyKey(100L, "retry-1"))
+                .thenReturn(Optional.of(notification1));
+        Notification retry = new Notification(100L, "Notification 1", "This is the first notification.");
+        retry.setIdempotencyKey("retry-1");
+
+        assertSame(notification1, notificationService.createNotification(retry));
+        verify(notificationRepository, never()).save(any(Notification.class));
+        verify(streamRegistry, never()).publish(any());
+    }
+
+    @Test
+    void testCreateNotificationResolvesConcurrentInsertOfSameKey() {
+        notification1.setIdempotencyKey("retry-1");
+        when(notificationRepository.findByUserIdAndIdempotencyKey(100L, "retry-1"))
+                .thenReturn(Optional.empty(), Optional.of(notification1));
+        when(notificationRepository.save(any(Notification.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_notification_idempotency"));
+        Notification retry = new Notification(100L, "Notification 1", "This is the first notification.");
+        retry.setIdempotencyKey("retry-1");
+
+        assertSame(notification1, notificationService.createNotification(retry));
+    }
+
+    @Test
+    void testCreateNotificationWithoutKeyPropagatesConstraintViolation() {
+        when(notificationRepository.save(any(Notification.class)))
+                .thenThrow(new DataIntegrityViolationException("boom"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> notificationService.createNotification(notification1));
+        verify(notificationRepository, never()).findByUserIdAndIdempotencyKey(any(), any());
+    }
+
+    @Test
+    void testCreateNotificationRetriesWithFreshContentWhenCachedContentWasDeleted() {
+        Notification notification = new Notification(100L, "Title", "Message");
+        when(notificationRepository.save(notification))
+                .thenAnswer(invocation -> {
+                    notification.setId(7L);
+                    throw new DataIntegrityViolationException("fk_notification_message");
+                })
+                .thenReturn(notification1);
+
+        assertSame(notification1, notificationService.createNotification(notification));
+        // ID alloué pendant la tentative annulée abandonné, contenu relu ou recréé
+        assertNull(notification.getId());
+        InOrder order = inOrder(notificationMessageStore, notificationRepository);
+        order.verify(notificationMessageStore).forget(List.of(notification));
+        order.verify(notificationMessageStore).resolveAll(List.of(notification));
+        order.verify(notificationRepository).save(notification);
+    }
+
+    @Test
+    void testCreateNotificationsRetriesWithFreshContentWhenCachedContentWasDeleted() {
+        when(notificationRepository.saveAll(any()))
+                .thenThrow(new DataIntegrityViolationException("fk_notification_message"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        List<Notification> notifications = List.of(notification1, notification2);
+
+        assertEquals(notifications, notificationService.createNotifications(notifications));
+        verify(notificationMessageStore).forget(notifications);
+        verify(notificationMessageStore, times(2)).resolveAll(notifications);
+        verify(notificationRepository, times(2)).saveAll(notifications);
+    }
+
+    @Test
+    void testCreateNotificationsSkipsKnownAndRepeatedKeys() {
+        Notification stored = new Notification(100L, "Stored", "Already created");
+        stored.setId(9L);
+        stored.setIdempotencyKey("a");
+        // Même clé, autre utilisateur : pas un doublon
+        Notification otherUser = new Notification(200L, "Other", "Other user");
+        otherUser.setIdempotencyKey("b");
+        // Renvoyée par les deux filtres IN, mais la paire (200, a) n'est pas demandée
+        Notification otherUserStored = new Notification(200L, "Other", "Other user");
+        otherUserStored.setIdempotencyKey("a");
+        when(notificationRepository.findByUserIdInAndIdempotencyKeyIn(Set.of(100L, 200L), Set.of("a", "b")))
+                .thenReturn(List.of(stored, otherUserStored));
+        notification1.setIdempotencyKey("a");
+        notification2.setIdempotencyKey("b");
+        Notification repeated = new Notification(100L, "Notification 2", "Repeated in the same batch");
+        repeated.setIdempotencyKey("b");
+        when(notificationRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Notification> created = notificationService.createNotifications(
+                List.of(notification1, notification2, repeated, otherUser));
+
+        assertEquals(List.of(stored, notification2, notification2, otherUser), created);
+        verify(notificationRepository).saveAll(List.of(notification2, otherUser));
+    }
+
+    @Test
+    void testCreateNotificationsSkipsKeyInsertedByConcurrentBatch() {
+        Notification concurrent = new Notification(100L, "Notification 1", "Inserted by another batch");
+        concurrent.setId(9L);
+        concurrent.setIdempotencyKey("a");
+        notification1.setIdempotencyKey("a");
+        notification2.setIdempotencyKey("b");
+        // Pas encore validée à la première lecture, trouvée à la relecture
+        when(notificationRepository.findByUserIdInAndIdempotencyKeyIn(any(), any()))
+                .thenReturn(List.of(), List.of(concurrent));
+        when(notificationRepository.saveAll(any()))
+                .thenThrow(new DataIntegrityViolationException("uk_notification_idempotency"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Notification> created = notificationService.createNotifications(List.of(notification1, notification2));
+
+        assertEquals(List.of(concurrent, notification2), created);
+        verify(notificationRepository).saveAll(List.of(notification2));
+    }
+
+    @Test
+    void testCreateNotificationsFallsBackToOneInsertPerRowOnRepeatedConflict() {
+        Notification concurrent = new Notification(100L, "Notification 1", "Inserted by another batch");
+        concurrent.setId(9L);
+        notification1.setIdempotencyKey("a");
+        when(notificationRepository.saveAll(any()))
+                .thenThrow(new DataIntegrityViolationException("uk_notification_idempotency"));
+        when(notificationRepository.findByUserIdAndIdempotencyKey(100L, "a")).thenReturn(Optional.of(concurrent));
+        when(notificationRepository.save(notification2)).thenReturn(notification2);
+
+        List<Notification> created = notificationService.createNotifications(List.of(notification1, notification2));
+
+        assertEquals(List.of(concurrent, notification2), created);
+        verify(notificationRepository, times(2)).saveAll(any());
+        verify(notificationRepository, never()).save(notification1);
+    }
+
+    @Test
+    void testCreateNotificationsReloadsRememberedKeysById() {
+        Notification stored = new Notification(100L, "Stored", "Already created");
+        stored.setId(9L);
+        stored.setIdempotencyKey("a");
+        notificationIdempotencyCache.put("100:a", 9L);
+        when(notificationRepository.findAllById(Set.of(9L))).thenReturn(List.of(stored));
+        notification1.setIdempotencyKey("a");
+
+        assertEquals(List.of(stored), notificationService.createNotifications(List.of(notification1)));
+        verify(notificationRepository, never()).findByUserIdInAndIdempotencyKeyIn(any(), any());
+        verify(notificationRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testCreateNotificationsWithoutKeysDoesNotLookThemUp() {
+        when(notificationRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        notificationService.createNotifications(List.of(notification1, notification2));
+
+        verify(notificationRepository, never()).findByUserIdInAndIdempotencyKeyIn(any(), any());
     }
 
     @Test
     void testGetNotificationsByUserId() {
-        when(notificationRepository.findByUserId(100L)).thenReturn(Arrays.asList(notification1, notification2));
+        when(notificationRepository.findViewsByUserId(100L)).thenReturn(views(notification1, notification2));
 
-        List<Notification> notifications = notificationService.getNotificationsByUserId(100L);
+        List<NotificationView> notifications = notificationService.getNotificationsByUserId(100L);
 
         assertNotNull(notifications);
         assertEquals(2, notifications.size());
-        verify(notificationRepository, times(1)).findByUserId(100L);
+        verify(notificationRepository, times(1)).findViewsByUserId(100L);
+    }
+
+    @Test
+    void testGetNotificationsByUserIdIsServedFromCacheUntilInvalidated() {
+        when(notificationRepository.findViewsByUserId(100L)).thenReturn(views(notification1, notification2));
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        notificationService.getNotificationsByUserId(100L);
+        notificationService.getNotificationsByUserId(100L);
+        verify(notificationRepository, times(1)).findViewsByUserId(100L);
+
+        notificationService.createNotification(new Notification(100L, "Notification 3", "Third"));
+        notificationService.getNotificationsByUserId(100L);
+
+        verify(notificationRepository, times(2)).findViewsByUserId(100L);
+        verify(cacheBroadcaster).broadcast(Set.of(100L));
+    }
+
+    @Test
+    void testMarkAsReadInvalidatesOnlyTheOwnersLists() {
+        when(notificationRepository.findUnreadViewsByUserId(100L)).thenReturn(views(notification1));
+        when(notificationRepository.findUnreadViewsByUserId(200L)).thenReturn(List.of());
+        when(notificationRepository.markAsReadById(1L)).thenReturn(1);
+        when(notificationRepository.findById(1L)).thenReturn(Optional.of(notification1));
+        notificationService.getUnreadNotificationsByUserId(100L);
+        notificationService.getUnreadNotificationsByUserId(200L);
+
+        notificationService.markAsRead(1L);
+        notificationService.getUnreadNotificationsByUserId(100L);
+        notificationService.getUnreadNotificationsByUserId(200L);
+
+        verify(notificationRepository, times(2)).findUnreadViewsByUserId(100L);
+        verify(notificationRepository, times(1)).findUnreadViewsByUserId(200L);
+    }
+
+    @Test
+    void testGetNotificationsPageReturnsNextCursorWhenMoreRowsExist() {
+        notification1.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 1));
+        notification2.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        Notification notification3 = new Notification(100L, "Notification 3", "Third");
+        when(notificationRepository.findFirstPageByUserId(eq(100L), any()))
+                .thenReturn(views(notification1, notification2, notification3));
+
+        NotificationPage page = notificationService.getNotificationsPage(100L, null, 2);
+
+        assertEquals(2, page.items().size());
+        assertEquals(NotificationCursor.of(notification2).encode(), page.nextCursor());
+    }
+
+    @Test
+    void testGetNotificationsPageWithCursorUsesKeysetQuery() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        String cursor = new NotificationCursor(createdAt, 5L).encode();
+        when(notificationRepository.findPageByUserIdBefore(eq(100L), eq(createdAt), eq(5L), any()))
+                .thenReturn(views(notification1));
+
+        NotificationPage page = notificationService.getNotificationsPage(100L, cursor, 2);
+
+        assertEquals(1, page.items().size());
+        assertNull(page.nextCursor());
+        verify(notificationRepository, never()).findFirstPageByUserId(anyLong(), any());
+    }
+
+    @Test
+    void testGetNotificationsPageRejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> notificationService.getNotificationsPage(100L, "not a cursor", 2));
+    }
+
+    @Test
+    void testStreamNotificationsReplaysMissedNotifications() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        String lastEventId = new NotificationCursor(createdAt, 5L).encode();
+        when(streamRegistry.subscribe(100L)).thenReturn(subscription);
+        when(notificationRepository.findPageByUserIdAfter(eq(100L), eq(createdAt), eq(5L), any()))
+                .thenReturn(List.of(notification1, notification2));
+
+        notificationService.streamNotifications(100L, lastEventId);
+
+        verify(subscription).start(List.of(notification1, notification2), false);
+    }
+
+    @Test
+    void testStreamNotificationsAsksForResyncWhenReplayIsTruncated() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        String lastEventId = new NotificationCursor(createdAt, 5L).encode();
+        List<Notification> tooMany = Collections.nCopies(101, notification1);
+        when(streamRegistry.subscribe(100L)).thenReturn(subscription);
+        when(notificationRepository.findPageByUserIdAfter(eq(100L), eq(createdAt), eq(5L), any()))
+                .thenReturn(tooMany);
+
+        notificationService.streamNotifications(100L, lastEventId);
+
+        verify(subscription).start(List.of(), true);
+    }
+
+    @Test
+    void testStreamNotificationsWithoutLastEventIdSkipsReplay() {
+        when(streamRegistry.subscribe(100L)).thenReturn(subscription);
+
+        notificationService.streamNotifications(100L, "garbage id");
+
+        verify(subscription).start(List.of(), false);
+        verify(notificationRepository, never()).findPageByUserIdAfter(anyLong(), any(), anyLong(), any());
     }
 
     @Test
     void testGetUnreadNotificationsByUserId() {
-        when(notificationRepository.findByUserIdAndReadFalse(100L)).thenReturn(Arrays.asList(notification1, notification2));
+        when(notificationRepository.findUnreadViewsByUserId(100L)).thenReturn(views(notification1, notification2));
 
-        List<Notification> unreadNotifications = notificationService.getUnreadNotificationsByUserId(100L);
+        List<NotificationView> unreadNotifications = notificationService.getUnreadNotificationsByUserId(100L);
 
         assertNotNull(unreadNotifications);
         assertEquals(2, unreadNotifications.size());
-        verify(notificationRepository, times(1)).findByUserIdAndReadFalse(100L);
+        verify(notificationRepository, times(1)).findUnreadViewsByUserId(100L);
+    }
+
+    @Test
+    void testPendingReadMarksAreVisibleBeforeFlush() {
+        when(notificationRepository.findUnreadViewsByUserId(100L)).thenReturn(views(notification1, notification2));
+        when(notificationRepository.findViewsByUserId(100L)).thenReturn(views(notification1, notification2));
+
+        notificationService.markAsReadDeferred(100L, notification1.getId());
+
+        List<NotificationView> unread = notificationService.getUnreadNotificationsByUserId(100L);
+        assertEquals(List.of(notification2.getId()), unread.stream().map(NotificationView::id).toList());
+        List<NotificationView> all = notificationService.getNotificationsByUserId(100L);
+        assertTrue(all.get(0).read());
+        verify(notificationRepository, never()).findById(any());
+    }
+
+    @Test
+    void testMarkAsReadByUserRunsOneUpdatePerUser() {
+        unreadCounterStore.get(100L, () -> 5);
+        when(notificationRepository.markAsReadByUserIdAndIdIn(100L, Set.of(1L, 2L))).thenReturn(2);
+        when(notificationRepository.markAsReadByUserIdAndIdIn(200L, Set.of(3L))).thenReturn(0);
+
+        assertEquals(2, notificationService.markAsReadByUser(Map.of(100L, Set.of(1L, 2L), 200L, Set.of(3L))));
+
+        assertEquals(3, notificationService.getUnreadCount(100L));
+        verify(cacheBroadcaster).broadcast(Set.of(100L));
     }
 
     @Test
     void testMarkAsRead() {
-        when(notificationRepository.findById(1L)).thenReturn(Optional.of(notification1));
-        when(notificationRepository.save(any(Notification.class))).thenReturn(notification1);
+        when(notificationRepository.markAsReadById(1L)).thenReturn(1);
+        when(notificationRepository.findById(1L)).thenAnswer(invocation -> {
+            notification1.setRead(true);
+            return Optional.of(notification1);
+        });
 
         Notification updatedNotification = notificationService.markAsRead(1L);
 
         assertNotNull(updatedNotification);
         assertTrue(updatedNotification.isRead());
-        verify(notificationRepository, times(1)).findById(1L);
-        verify(notificationRepository, times(1)).save(notification1);
+        verify(notificationRepository, times(1)).markAsReadById(1L);
+        verify(notificationRepository, never()).save(any(Notification.class));
+    }
+
+    @Test
+    void testConcurrentMarkAsReadDecrementsCounterOnce() {
+        when(notificationRepository.countByUserIdAndReadFalse(100L)).thenReturn(2L);
+        // Les deux appels lisent la notification non lue ; seul le premier UPDATE conditionnel la modifie
+        when(notificationRepository.markAsReadById(1L)).thenReturn(1, 0);
+        when(notificationRepository.findById(1L)).thenReturn(Optional.of(notification1));
+        notificationService.getUnreadCount(100L);
+
+        notificationService.markAsRead(1L);
+        notificationService.markAsRead(1L);
+
+        assertEquals(1L, notificationService.getUnreadCount(100L));
+        verify(cacheBroadcaster, times(1)).broadcast(Set.of(100L));
+    }
+
+    @Test
+    void testGetUnreadCountIsSeededOnceThenMaintainedInMemory() {
+        when(notificationRepository.countByUserIdAndReadFalse(100L)).thenReturn(2L);
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(notificationRepository.markAsReadById(1L)).thenReturn(1, 0);
+        when(notificationRepository.findById(1L)).thenReturn(Optional.of(notification1));
+
+        assertEquals(2L, notificationService.getUnreadCount(100L));
+
+        notificationService.createNotification(new Notification(100L, "Notification 3", "Third"));
+        assertEquals(3L, notificationService.getUnreadCount(100L));
+
+        notificationService.markAsRead(1L);
+        assertEquals(2L, notificationService.getUnreadCount(100L));
+
+        // Marquer une seconde fois une notification déjà lue ne change pas le compteur
+        notificationService.markAsRead(1L);
+        assertEquals(2L, notificationService.getUnreadCount(100L));
+
+        verify(notificationRepository, times(1)).countByUserIdAndReadFalse(100L);
+    }
+
+    @Test
+    void testDeleteNotificationsByUserIdResetsUnreadCount() {
+        when(notificationRepository.countByUserIdAndReadFalse(100L)).thenReturn(2L, 0L);
+
+        assertEquals(2L, notificationService.getUnreadCount(100L));
+        notificationService.deleteNotificationsByUserId(100L);
+
+        assertEquals(0L, notificationService.getUnreadCount(100L));
+        verify(notificationRepository, times(2)).countByUserIdAndReadFalse(100L);
+    }
+
+    @Test
+    void testMarkAllAsReadUpdatesCounterWithoutLoadingEntities() {
+        when(notificationRepository.countByUserIdAndReadFalse(100L)).thenReturn(2L);
+        when(notificationRepository.markAllAsReadByUserId(100L)).thenReturn(2);
+        notificationService.getUnreadCount(100L);
+
+        int updated = notificationService.markAllAsRead(100L);
+
+        assertEquals(2, updated);
+        assertEquals(0L, notificationService.getUnreadCount(100L));
+        verify(notificationRepository, never()).findById(anyLong());
+        verify(notificationRepository, never()).save(any(Notification.class));
+    }
+
+    @Test
+    void testBulkMarkAsRead() {
+        when(notificationRepository.markAsReadByUserIdAndIdIn(100L, List.of(1L, 2L))).thenReturn(1);
+
+        assertEquals(1, notificationService.markAsRead(100L, List.of(1L, 2L)));
+        assertEquals(0, notificationService.markAsRead(100L, List.of()));
+        verify(notificationRepository, times(1)).markAsReadByUserIdAndIdIn(anyLong(), any());
     }
 
     @Test
@@ -114,4 +557,59 @@ class NotificationServiceTest {
 
         verify(notificationRepository, times(1)).deleteByUserId(100L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDeleteNotificationsByUserIdEvictsUnreadCountAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            notificationService.deleteNotificationsByUserId(100L);
+            verify(unreadCounterStore, never()).evict(anyLong());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(unreadCounterStore).evict(100L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testDeleteNotificationsChunkDeletesOneIdRange() {
+        when(notificationRepository.findIdsByUserIdUpTo(eq(100L), eq(50L), any())).thenReturn(List.of(3L, 7L, 12L));
+        when(notificationRepository.deleteByUserIdAndIdBetween(100L, 3L, 12L)).thenReturn(3);
+
+        assertEquals(3, notificationService.deleteNotificationsChunk(100L, 50L, 3));
+        verify(cacheBroadcaster).broadcast(Set.of(100L));
+    }
+
+    @Test
+    void testDeleteNotificationsChunkReturnsZeroWhenNothingLeft() {
+        when(notificationRepository.findIdsByUserIdUpTo(eq(100L), eq(50L), any())).thenReturn(List.of());
+
+        assertEquals(0, notificationService.deleteNotificationsChunk(100L, 50L, 3));
+        verify(notificationRepository, never()).deleteByUserIdAndIdBetween(anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void testDeleteReadNotificationsBetweenInvalidatesAffectedUsers() {
+        LocalDateTime before = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(notificationRepository.findUserIdsOfReadBetween(1L, 1000L, before)).thenReturn(List.of(100L, 200L));
+        when(notificationRepository.deleteReadBetween(1L, 1000L, before)).thenReturn(5);
+
+        assertEquals(5, notificationService.deleteReadNotificationsBetween(1L, 1000L, before));
+        verify(cacheBroadcaster).broadcast(Set.of(100L, 200L));
+        verify(unreadCounterStore, never()).evict(anyLong());
+    }
+
+    @Test
+    void testDeleteReadNotificationsBetweenSkipsEmptyRange() {
+        LocalDateTime before = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(notificationRepository.findUserIdsOfReadBetween(1L, 1000L, before)).thenReturn(List.of());
+
+        assertEquals(0, notificationService.deleteReadNotificationsBetween(1L, 1000L, before));
+        verify(notificationRepository, never()).deleteReadBetween(any(), any(), any());
+    }
+
+    private static List<NotificationView> views(Notification... notifications) {
+        return Arrays.stream(notifications).map(NotificationView::of).toList();
+    }
+}
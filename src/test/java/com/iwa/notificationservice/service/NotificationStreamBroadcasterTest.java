@@ -0,0 +1,119 @@
+package com.iwa.notificationservice.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.iwa.notificationservice.dto.NotificationStreamEvent;
+import com.iwa.notificationservice.model.Notification;
+import com.iwa.notificationservice.repository.NotificationRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NotificationStreamBroadcasterTest {
+
+    @InjectMocks
+    private NotificationStreamBroadcaster broadcaster;
+
+    @Mock
+    private NotificationStreamRegistry streamRegistry;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private KafkaTemplate<Object, Object> kafkaTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(kafkaTemplate.send(any(), any(), any())).thenReturn(new CompletableFuture<>());
+    }
+
+    @Test
+    void testNotificationsFromAnotherInstanceAreLoadedForLocalSubscribers() throws Exception {
+        Notification notification = new Notification(42L, "Titre", "Message");
+        notification.setId(7L);
+        String payload = objectMapper.writeValueAsString(List.of(
+                new NotificationStreamEvent(7L, 42L), new NotificationStreamEvent(8L, 43L)));
+        when(streamRegistry.hasSubscribers(42L)).thenReturn(true);
+        when(notificationRepository.findWithContentByIdIn(List.of(7L))).thenReturn(List.of(notification));
+
+        broadcaster.listenStreamEvents(new ConsumerRecord<>("notification-stream-events", 0, 0L, "other-instance", payload));
+
+        verify(streamRegistry).publish(notification);
+        verify(streamRegistry, times(1)).publish(any());
+    }
+
+    @Test
+    void testEventsWithoutLocalSubscriberDoNotHitTheDatabase() throws Exception {
+        String payload = objectMapper.writeValueAsString(List.of(new NotificationStreamEvent(7L, 42L)));
+
+        broadcaster.listenStreamEvents(new ConsumerRecord<>("notification-stream-events", 0, 0L, "other-instance", payload));
+
+        verifyNoInteractions(notificationRepository);
+        verify(streamRegistry, never()).publish(any());
+    }
+
+    @Test
+    void testOnlyIdsAndRecipientsAreBroadcast() throws Exception {
+        Notification notification = new Notification(42L, "Titre", "Message");
+        notification.setId(7L);
+        notification.setIdempotencyKey("order-42");
+
+        broadcaster.broadcast(List.of(notification));
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate).send(any(), eq(NotificationCacheBroadcaster.INSTANCE_ID), payload.capture());
+        assertEquals(List.of(new NotificationStreamEvent(7L, 42L)),
+                objectMapper.readValue(payload.getValue().toString(), new TypeReference<List<NotificationStreamEvent>>() {
+                }));
+        assertFalse(payload.getValue().toString().contains("order-42"));
+    }
+
+    @Test
+    void testOwnEventsAreIgnored() {
+        broadcaster.listenStreamEvents(new ConsumerRecord<>("notification-stream-events", 0, 0L,
+                NotificationCacheBroadcaster.INSTANCE_ID, "[]"));
+
+        verifyNoInteractions(streamRegistry);
+    }
+
+    @Test
+    void testMalformedEventIsIgnored() {
+        broadcaster.listenStreamEvents(new ConsumerRecord<>("notification-stream-events", 0, 0L, "other-instance", "{"));
+
+        verifyNoInteractions(streamRegistry);
+    }
+
+    @Test
+    void testLargeCreationIsSplitIntoSeveralRecords() {
+        List<Notification> notifications = LongStream.range(0, 1200)
+                .mapToObj(userId -> new Notification(userId, "Titre", "Message"))
+                .toList();
+
+        broadcaster.broadcast(notifications);
+
+        verify(kafkaTemplate, times(3)).send(any(), eq(NotificationCacheBroadcaster.INSTANCE_ID), anyString());
+    }
+}
@@ -0,0 +1,82 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.model.Notification;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationStreamRegistryTest {
+
+    // Exécuteur qui n'exécute jamais les envois : simule un client qui ne lit plus
+    private static final Executor STALLED = task -> { };
+
+    @Test
+    void testSubscribeAndShutdown() {
+        NotificationStreamRegistry registry = new NotificationStreamRegistry(Duration.ofMinutes(1), 8, Runnable::run);
+
+        NotificationStreamRegistry.Subscription subscription = registry.subscribe(1L);
+        subscription.start(List.of(), false);
+        assertEquals(1, registry.getSubscriptionCount());
+
+        assertTrue(registry.hasSubscribers(1L));
+        assertFalse(registry.hasSubscribers(2L));
+
+        registry.shutdown();
+        assertTrue(subscription.isClosed());
+        assertEquals(0, registry.getSubscriptionCount());
+        assertFalse(registry.hasSubscribers(1L));
+    }
+
+    @Test
+    void testPublishOnlyReachesRecipient() {
+        NotificationStreamRegistry registry = new NotificationStreamRegistry(Duration.ofMinutes(1), 2, STALLED);
+        NotificationStreamRegistry.Subscription subscription = registry.subscribe(1L);
+        subscription.start(List.of(), false);
+
+        for (int i = 0; i < 10; i++) {
+            registry.publish(notification((long) i, 2L));
+        }
+
+        assertFalse(subscription.isClosed());
+        assertEquals(0, registry.getDroppedEventCount());
+    }
+
+    @Test
+    void testSlowSubscriberIsDisconnected() {
+        NotificationStreamRegistry registry = new NotificationStreamRegistry(Duration.ofMinutes(1), 2, STALLED);
+        NotificationStreamRegistry.Subscription slow = registry.subscribe(1L);
+        slow.start(List.of(), false);
+
+        registry.publish(notification(1L, 1L));
+        registry.publish(notification(2L, 1L));
+        assertFalse(slow.isClosed());
+
+        registry.publish(notification(3L, 1L));
+
+        assertTrue(slow.isClosed());
+        assertEquals(1, registry.getDroppedEventCount());
+        assertEquals(0, registry.getSubscriptionCount());
+    }
+
+    @Test
+    void testHeartbeatsCountTowardsBackpressure() {
+        NotificationStreamRegistry registry = new NotificationStreamRegistry(Duration.ofMinutes(1), 1, STALLED);
+        NotificationStreamRegistry.Subscription subscription = registry.subscribe(1L);
+        subscription.start(List.of(), false);
+
+        registry.sendHeartbeats();
+        registry.sendHeartbeats();
+
+        assertTrue(subscription.isClosed());
+    }
+
+    private static Notification notification(Long id, Long userId) {
+        Notification notification = new Notification(userId, "Title " + id, "Message " + id);
+        notification.setId(id);
+        return notification;
+    }
+}
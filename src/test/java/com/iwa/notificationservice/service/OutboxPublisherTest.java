@@ -0,0 +1,109 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.model.OutboxEvent;
+import com.iwa.notificationservice.repository.OutboxEventRepository;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OutboxPublisherTest {
+
+    @InjectMocks
+    private OutboxPublisher outboxPublisher;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private KafkaTemplate<Object, Object> kafkaTemplate;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testPublishedEventsAreMarked() {
+        OutboxEvent first = new OutboxEvent("user-deletion-approved", "1", "{}");
+        OutboxEvent second = new OutboxEvent("user-deletion-approved", "2", "{}");
+        when(outboxEventRepository.findUnpublishedForUpdate(any())).thenReturn(List.of(first, second));
+        when(kafkaTemplate.send(any(String.class), any(), any())).thenReturn(sent());
+
+        assertEquals(2, outboxPublisher.publishPending());
+
+        assertNotNull(first.getPublishedAt());
+        assertNotNull(second.getPublishedAt());
+    }
+
+    @Test
+    void testWholeBatchIsSentBeforeWaitingForAcknowledgements() {
+        OutboxEvent first = new OutboxEvent("user-deletion-approved", "1", "{}");
+        OutboxEvent second = new OutboxEvent("user-deletion-approved", "2", "{}");
+        CompletableFuture<SendResult<Object, Object>> firstAck = new CompletableFuture<>();
+        when(outboxEventRepository.findUnpublishedForUpdate(any())).thenReturn(List.of(first, second));
+        when(kafkaTemplate.send("user-deletion-approved", "1", "{}")).thenReturn(firstAck);
+        // Le second envoi part avant l'acquittement du premier
+        when(kafkaTemplate.send("user-deletion-approved", "2", "{}")).thenAnswer(invocation -> {
+            assertFalse(firstAck.isDone());
+            firstAck.complete(sent().join());
+            return sent();
+        });
+
+        assertEquals(2, outboxPublisher.publishPending());
+
+        verify(kafkaTemplate, times(2)).send(any(String.class), any(), any());
+    }
+
+    @Test
+    void testOnlyEventsBeforeTheFirstFailureAreMarked() {
+        OutboxEvent first = new OutboxEvent("user-deletion-approved", "1", "{}");
+        OutboxEvent second = new OutboxEvent("user-deletion-approved", "2", "{}");
+        OutboxEvent third = new OutboxEvent("user-deletion-approved", "3", "{}");
+        CompletableFuture<SendResult<Object, Object>> secondAck = new CompletableFuture<>();
+        when(outboxEventRepository.findUnpublishedForUpdate(any())).thenReturn(List.of(first, second, third));
+        when(kafkaTemplate.send("user-deletion-approved", "1", "{}")).thenReturn(sent());
+        when(kafkaTemplate.send("user-deletion-approved", "2", "{}")).thenReturn(secondAck);
+        when(kafkaTemplate.send("user-deletion-approved", "3", "{}")).thenAnswer(invocation -> {
+            secondAck.completeExceptionally(new IllegalStateException("broker down"));
+            return sent();
+        });
+
+        assertEquals(1, outboxPublisher.publishPending());
+
+        // Le troisième, bien qu'acquitté, sera renvoyé après le second : l'ordre par clé est conservé
+        assertNotNull(first.getPublishedAt());
+        assertNull(second.getPublishedAt());
+        assertNull(third.getPublishedAt());
+    }
+
+    @Test
+    void testBatchStopsWhenASendFailsImmediately() {
+        OutboxEvent first = new OutboxEvent("user-deletion-approved", "1", "{}");
+        OutboxEvent second = new OutboxEvent("user-deletion-approved", "2", "{}");
+        when(outboxEventRepository.findUnpublishedForUpdate(any())).thenReturn(List.of(first, second));
+        when(kafkaTemplate.send(any(String.class), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertEquals(0, outboxPublisher.publishPending());
+
+        assertNull(first.getPublishedAt());
+        assertNull(second.getPublishedAt());
+        verify(kafkaTemplate, times(1)).send(any(String.class), any(), any());
+    }
+
+    private static CompletableFuture<SendResult<Object, Object>> sent() {
+        return CompletableFuture.completedFuture(new SendResult<>(new ProducerRecord<>("user-deletion-approved", "{}"), null));
+    }
+}
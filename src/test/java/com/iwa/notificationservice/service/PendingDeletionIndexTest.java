@@ -0,0 +1,74 @@
+package com.iwa.notificationservice.service;
+
+import com.iwa.notificationservice.model.AccountDeletionRequest.RequestStatus;
+import com.iwa.notificationservice.repository.AccountDeletionRequestRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PendingDeletionIndexTest {
+
+    @InjectMocks
+    private PendingDeletionIndex index;
+
+    @Mock
+    private AccountDeletionRequestRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testLoadSeedsPendingUsers() {
+        when(repository.findUserIdsByStatus(RequestStatus.PENDING)).thenReturn(List.of(1L, 2L));
+
+        index.load();
+
+        assertTrue(index.contains(1L));
+        assertTrue(index.contains(2L));
+        assertFalse(index.contains(3L));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testAddReservesUserOnce() {
+        assertTrue(index.add(1L));
+        assertFalse(index.add(1L));
+
+        index.remove(1L);
+
+        assertTrue(index.add(1L));
+    }
+
+    @Test
+    void testRemoteReleaseKeepsReservationInProgress() {
+        index.confirmAll(List.of(1L));
+        index.add(2L);
+
+        index.release(1L);
+        index.release(2L);
+
+        assertFalse(index.contains(1L));
+        assertTrue(index.contains(2L));
+    }
+
+    @Test
+    void testExpiredEntryCanBeReservedAgain() {
+        ReflectionTestUtils.setField(index, "ttl", Duration.ZERO);
+        index.confirmAll(List.of(1L));
+
+        assertFalse(index.contains(1L));
+        assertTrue(index.add(1L));
+    }
+}
@@ -0,0 +1,71 @@
+package com.iwa.notificationservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadMarkBufferTest {
+
+    private ReadMarkBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new ReadMarkBuffer(3);
+    }
+
+    @Test
+    void testDuplicateMarksAreCoalesced() {
+        assertTrue(buffer.add(1L, 10L));
+        assertFalse(buffer.add(1L, 10L));
+        buffer.add(2L, 20L);
+
+        assertEquals(2, buffer.size());
+        assertEquals(Map.of(1L, Set.of(10L), 2L, Set.of(20L)), buffer.drain());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void testDrainedMarksStayVisibleUntilReleased() {
+        buffer.add(1L, 10L);
+
+        buffer.drain();
+        assertTrue(buffer.hasPending(1L));
+        assertTrue(buffer.isPending(1L, 10L));
+
+        buffer.release(List.of(1L));
+        assertFalse(buffer.hasPending(1L));
+        assertFalse(buffer.isPending(1L, 10L));
+    }
+
+    @Test
+    void testRequeuedMarksAreFlushedAgain() {
+        buffer.add(1L, 10L);
+        Map<Long, Set<Long>> drained = buffer.drain();
+
+        drained.forEach(buffer::requeue);
+        buffer.release(drained.keySet());
+
+        assertTrue(buffer.isPending(1L, 10L));
+        assertEquals(Map.of(1L, Set.of(10L)), buffer.drain());
+    }
+
+    @Test
+    void testThresholdTriggersEarlyFlush() {
+        AtomicInteger triggered = new AtomicInteger();
+        buffer.setFlushTrigger(triggered::incrementAndGet);
+
+        buffer.add(1L, 10L);
+        buffer.add(1L, 11L);
+        buffer.add(1L, 11L);
+        assertEquals(0, triggered.get());
+
+        buffer.add(2L, 20L);
+        assertEquals(1, triggered.get());
+    }
+}
@@ -0,0 +1,74 @@
+package com.iwa.notificationservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ReadMarkFlusherTest {
+
+    @InjectMocks
+    private ReadMarkFlusher flusher;
+
+    @Spy
+    private ReadMarkBuffer readMarkBuffer = new ReadMarkBuffer(100);
+
+    @Mock
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testFlushWritesCoalescedMarksInOneCall() {
+        readMarkBuffer.add(1L, 10L);
+        readMarkBuffer.add(1L, 10L);
+        readMarkBuffer.add(1L, 11L);
+        readMarkBuffer.add(2L, 20L);
+        when(notificationService.markAsReadByUser(any())).thenReturn(3);
+
+        assertEquals(3, flusher.flush());
+
+        verify(notificationService).markAsReadByUser(Map.of(1L, Set.of(10L, 11L), 2L, Set.of(20L)));
+        assertFalse(readMarkBuffer.hasPending(1L));
+        assertFalse(readMarkBuffer.hasPending(2L));
+    }
+
+    @Test
+    void testEmptyBufferDoesNotHitDatabase() {
+        assertEquals(0, flusher.flush());
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void testFailedFlushKeepsMarksPending() {
+        readMarkBuffer.add(1L, 10L);
+        when(notificationService.markAsReadByUser(any())).thenThrow(new RuntimeException("Database unavailable"));
+
+        assertEquals(0, flusher.flush());
+
+        assertTrue(readMarkBuffer.isPending(1L, 10L));
+        assertEquals(1, readMarkBuffer.size());
+    }
+
+    @Test
+    void testShutdownDrainsBuffer() {
+        readMarkBuffer.add(1L, 10L);
+
+        flusher.shutdown();
+
+        verify(notificationService).markAsReadByUser(Map.of(1L, Set.of(10L)));
+        assertEquals(0, readMarkBuffer.size());
+    }
+}
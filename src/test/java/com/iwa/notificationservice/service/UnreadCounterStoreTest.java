@@ -0,0 +1,86 @@
+package com.iwa.notificationservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnreadCounterStoreTest {
+
+    @Test
+    void testLoaderRunsOnlyOnMiss() {
+        UnreadCounterStore store = new UnreadCounterStore(10);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(4L, store.get(1L, () -> { loads.incrementAndGet(); return 4L; }));
+        assertEquals(4L, store.get(1L, () -> { loads.incrementAndGet(); return 99L; }));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testUpdatesApplyOnlyToSeededCounters() {
+        UnreadCounterStore store = new UnreadCounterStore(10);
+
+        store.increment(1L);
+        assertEquals(7L, store.get(1L, () -> 7L));
+
+        store.increment(1L);
+        store.decrement(1L);
+        store.decrement(1L);
+        assertEquals(6L, store.get(1L, () -> 0L));
+    }
+
+    @Test
+    void testCounterNeverGoesNegative() {
+        UnreadCounterStore store = new UnreadCounterStore(10);
+        store.get(1L, () -> 0L);
+
+        store.decrement(1L);
+
+        assertEquals(0L, store.get(1L, () -> 5L));
+    }
+
+    @Test
+    void testCountRacingWithADeltaIsNotCached() {
+        UnreadCounterStore store = new UnreadCounterStore(10);
+
+        // Une notification est validée pendant le COUNT : la valeur lue est peut-être déjà périmée
+        assertEquals(3L, store.get(1L, () -> { store.increment(1L); return 3L; }));
+
+        assertEquals(4L, store.get(1L, () -> 4L));
+    }
+
+    @Test
+    void testCountRacingWithAnEvictionIsNotCached() {
+        UnreadCounterStore store = new UnreadCounterStore(10);
+
+        store.get(1L, () -> { store.evict(1L); return 3L; });
+
+        assertEquals(0L, store.get(1L, () -> 0L));
+    }
+
+    @Test
+    void testEvictForcesReload() {
+        UnreadCounterStore store = new UnreadCounterStore(10);
+        store.get(1L, () -> 3L);
+
+        store.evict(1L);
+
+        assertEquals(8L, store.get(1L, () -> 8L));
+    }
+
+    @Test
+    void testStoreIsBounded() {
+        UnreadCounterStore store = new UnreadCounterStore(10);
+        for (long userId = 0; userId < 50; userId++) {
+            store.get(userId, () -> 1L);
+        }
+
+        AtomicInteger reloads = new AtomicInteger();
+        for (long userId = 0; userId < 50; userId++) {
+            store.get(userId, () -> { reloads.incrementAndGet(); return 1L; });
+        }
+        assertTrue(reloads.get() > 0);
+    }
+}